@@ -19,6 +19,8 @@ const ENDPOINTS = {
   DONATIONS: '/donations',
   DONATIONS_BY_YEAR: '/donations',
   DONATIONS_ALL: '/donations/all',
+  DONATIONS_CHANGES: '/donations/changes',
+  DONATIONS_BATCH: '/donations/batch',
   DONATIONS_YEARS: '/donations/years',
   DONATIONS_STATS: '/donations',
   DONATIONS_HEALTH: '/donations/health',
@@ -180,6 +182,14 @@ class ApiService {
     });
   }
 
+  // items: [{ idempotencyKey, receiptDate, donation }]; safe to retry with the same keys
+  async createDonationsBatch(items) {
+    return this.makeRequest(ENDPOINTS.DONATIONS_BATCH, {
+      method: 'POST',
+      body: JSON.stringify({ items }),
+    });
+  }
+
   async getDonationsByYear(year) {
     return this.makeRequest(`${ENDPOINTS.DONATIONS_BY_YEAR}/${year}`);
   }
@@ -188,6 +198,13 @@ class ApiService {
     return this.makeRequest(ENDPOINTS.DONATIONS_ALL);
   }
 
+  // Delta sync: call without a cursor to get a starting cursor, then pass
+  // the returned nextCursor to receive only changed and deleted donations
+  async getDonationChanges(since) {
+    const query = since ? `?since=${encodeURIComponent(since)}` : '';
+    return this.makeRequest(`${ENDPOINTS.DONATIONS_CHANGES}${query}`);
+  }
+
   async updateDonation(year, donationId, donationData) {
     return this.makeRequest(`${ENDPOINTS.DONATIONS}/${year}/${donationId}`, {
       method: 'PUT',
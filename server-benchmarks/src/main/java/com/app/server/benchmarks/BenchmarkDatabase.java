@@ -0,0 +1,85 @@
+package com.app.server.benchmarks;
+
+import com.app.server.repository.DonationRepository;
+import com.app.server.repository.DonationRollupRepository;
+import com.app.server.repository.DonationTombstoneRepository;
+import com.app.server.repository.DonationYearVersions;
+import com.app.server.service.DonationTableService;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Private in-memory H2 database with the server's schema, for benchmarks
+ * that need real JDBC result sets
+ */
+final class BenchmarkDatabase {
+
+    static final int YEAR = 2024;
+
+    private BenchmarkDatabase() {
+    }
+
+    static JdbcTemplate open() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        return new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * A DonationRepository wired as in the server, without Spring and without
+     * write listeners
+     */
+    static DonationRepository repository(JdbcTemplate jdbcTemplate) {
+        DonationRollupRepository rollupRepository = new DonationRollupRepository(jdbcTemplate);
+        rollupRepository.createTableIfNotExists();
+        DonationTombstoneRepository tombstoneRepository = new DonationTombstoneRepository(jdbcTemplate);
+        tombstoneRepository.createTableIfNotExists();
+        DonationYearVersions yearVersions = new DonationYearVersions(jdbcTemplate);
+        yearVersions.createTableIfNotExists();
+        TransactionTemplate transactionTemplate =
+                new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource()));
+        return new DonationRepository(jdbcTemplate, rollupRepository, tombstoneRepository,
+                transactionTemplate, yearVersions, List.of());
+    }
+
+    /**
+     * Create the year table through DonationTableService and fill it with rows
+     */
+    static void seedDonations(JdbcTemplate jdbcTemplate, int rows) {
+        DonationRollupRepository rollupRepository = new DonationRollupRepository(jdbcTemplate);
+        rollupRepository.createTableIfNotExists();
+        DonationYearVersions yearVersions = new DonationYearVersions(jdbcTemplate);
+        yearVersions.createTableIfNotExists();
+        DonationTableService tableService = new DonationTableService(jdbcTemplate, rollupRepository, yearVersions);
+        tableService.initialize();
+        tableService.createTableForYear(YEAR);
+
+        LocalDateTime createdAt = LocalDateTime.of(YEAR, 9, 1, 10, 0);
+        List<Object[]> batch = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            boolean updated = i % 4 == 0;
+            batch.add(new Object[] {
+                    "Donor " + i, "Ganesh Peth, Pune", "+91 98765 43210",
+                    new java.math.BigDecimal("101.00"), "Cash", i % 3 == 0 ? "Festival" : null,
+                    Timestamp.valueOf(createdAt.plusMinutes(i)), Date.valueOf(LocalDate.of(YEAR, 9, 1)),
+                    "Bench_Collector",
+                    updated ? Timestamp.valueOf(createdAt.plusHours(1)) : null,
+                    updated ? "Bench_Admin" : null
+            });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO donations_" + YEAR
+                + " (donor_name, donor_address, donor_phone, donation_amount, donation_type, notes,"
+                + " created_at, created_date, created_by, updated_at, updated_by)"
+                + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", batch);
+    }
+}
@@ -0,0 +1,26 @@
+package com.app.server.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of benchmarks.jar: the usual JMH command line, with the GC
+ * profiler always on so every result comes with allocation rates
+ * (gc.alloc.rate.norm = bytes allocated per operation).
+ *
+ * java -jar target/benchmarks.jar                 all benchmarks
+ * java -jar target/benchmarks.jar JwtService      benchmarks matching a regex
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        new Runner(new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,377 @@
+package com.app.server.benchmarks;
+
+import com.app.server.repository.DonationRollupRepository;
+import com.app.server.repository.DonationYearVersions;
+import com.app.server.service.DonationTableService;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Synthetic multi-year dataset for scaling tests. Creates donations_<year>
+ * tables through DonationTableService without their secondary indexes,
+ * bulk-loads each one with several parallel writers using batched inserts,
+ * then creates the indexes and rebuilds the daily rollup.
+ *
+ * Donor names and collectors are skewed (a few families and collectors
+ * account for most receipts), addresses mix Marathi and English, amounts
+ * cluster on customary values with a long tail, and most receipts fall in
+ * the Ganeshotsav and Navratri/Diwali weeks.
+ *
+ * java -cp target/benchmarks.jar com.app.server.benchmarks.DatasetGenerator \
+ *      --url=jdbc:h2:file:./target/dataset --years=18 --rows-per-year=200000 --writers=8
+ *
+ * A year is marked complete in dataset_generator_years only once its rows,
+ * indexes and rollup are all in place. Complete years are skipped, so an
+ * interrupted run can be restarted; a year it left partly loaded is emptied
+ * and loaded again. The output is deterministic for a given --seed.
+ */
+public class DatasetGenerator {
+
+    private static final String[] FIRST_NAMES = {
+            "Ganesh", "Suresh", "Mahesh", "Sunita", "Anita", "Prakash", "Vijay", "Rekha",
+            "Sachin", "Meena", "Rajesh", "Kavita", "Santosh", "Asha", "Dnyaneshwar", "Savita",
+            "Vitthal", "Shubhangi", "Ashok", "Manisha", "Dattatray", "Ujwala", "Nitin", "Pallavi"};
+    private static final String[] LAST_NAMES = {
+            "Patil", "Deshmukh", "Kulkarni", "Jadhav", "Pawar", "Shinde", "Joshi", "More",
+            "Gaikwad", "Kale", "Chavan", "Bhosale", "Deshpande", "Salunkhe", "Mane", "Karande"};
+    private static final String[] MARATHI_FIRST_NAMES = {
+            "गणेश", "सुरेश", "सुनीता", "प्रकाश", "विजय", "रेखा", "संतोष", "आशा", "विठ्ठल", "मनीषा"};
+    private static final String[] MARATHI_LAST_NAMES = {
+            "पाटील", "देशमुख", "कुलकर्णी", "जाधव", "पवार", "शिंदे", "जोशी", "मोरे", "गायकवाड", "चव्हाण"};
+    private static final String[] AREAS = {
+            "Shaniwar Peth, Pune", "Kasba Peth, Pune", "Sadashiv Peth, Pune", "Kothrud, Pune",
+            "Narayan Peth, Pune", "Dadar West, Mumbai", "Girgaon, Mumbai", "Lalbaug, Mumbai",
+            "Gangapur Road, Nashik", "Rajarampuri, Kolhapur", "Station Road, Satara", "Tilak Road, Sangli"};
+    private static final String[] MARATHI_AREAS = {
+            "शनिवार पेठ, पुणे", "कसबा पेठ, पुणे", "सदाशिव पेठ, पुणे", "कोथरूड, पुणे",
+            "दादर पश्चिम, मुंबई", "गिरगाव, मुंबई", "गंगापूर रोड, नाशिक", "राजारामपुरी, कोल्हापूर"};
+    private static final String[] BUILDINGS = {
+            "Ganesh Niwas", "Shree Krupa", "Sai Sadan", "Laxmi Apartments", "Gokul Society", "Om Residency"};
+    // Receipt amounts cluster on customary values
+    private static final int[] AMOUNTS = {11, 21, 21, 51, 51, 101, 101, 101, 151, 201, 251, 251, 501, 501, 1001, 2101};
+    private static final String[] NOTES = {
+            "Ganeshotsav vargani", "Mandal varshik vargani", "Annadan", "Mahaprasad", "In memory of parents",
+            "गणेशोत्सव वर्गणी", "नवरात्र उत्सव", "Cheque pending clearance"};
+
+    private static final String INSERT_SQL = """
+            INSERT INTO donations_%d (donor_name, donor_address, donor_phone, donation_amount, donation_type,
+                                      notes, created_at, created_date, created_by, updated_at, updated_by)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private final Settings settings;
+    private final JdbcTemplate jdbcTemplate;
+    private final DonationTableService tableService;
+    private final TransactionTemplate transactionTemplate;
+    private final String[] collectors;
+
+    DatasetGenerator(Settings settings) {
+        this.settings = settings;
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(settings.url, settings.user, settings.password);
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        DonationRollupRepository rollupRepository = new DonationRollupRepository(jdbcTemplate);
+        rollupRepository.createTableIfNotExists();
+        DonationYearVersions yearVersions = new DonationYearVersions(jdbcTemplate);
+        yearVersions.createTableIfNotExists();
+        this.tableService = new DonationTableService(jdbcTemplate, rollupRepository, yearVersions);
+        tableService.initialize();
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS dataset_generator_years (
+                    table_year INT PRIMARY KEY,
+                    row_count BIGINT NOT NULL
+                )
+                """);
+
+        this.collectors = new String[settings.collectors];
+        for (int i = 0; i < collectors.length; i++) {
+            // Same firstName_lastName form the server stamps into created_by
+            collectors[i] = FIRST_NAMES[i % FIRST_NAMES.length] + "_"
+                    + LAST_NAMES[(i / FIRST_NAMES.length + i) % LAST_NAMES.length];
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Settings settings = Settings.parse(args);
+        new DatasetGenerator(settings).run();
+    }
+
+    private void run() throws Exception {
+        ExecutorService writers = Executors.newFixedThreadPool(settings.writers);
+        long start = System.nanoTime();
+        long totalRows = 0;
+        try {
+            for (int year = settings.fromYear; year <= settings.toYear; year++) {
+                totalRows += loadYear(writers, year);
+            }
+        } finally {
+            writers.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%nLoaded %,d rows into %d year tables in %.1f s (%,.0f rows/s)%n",
+                totalRows, settings.toYear - settings.fromYear + 1, seconds, totalRows / seconds);
+    }
+
+    /**
+     * Create one year table bare, fill it with parallel writers, then index it,
+     * rebuild its rollup and mark it complete. Returns the number of rows inserted.
+     */
+    private long loadYear(ExecutorService writers, int year) throws Exception {
+        List<Long> completed = jdbcTemplate.queryForList(
+                "SELECT row_count FROM dataset_generator_years WHERE table_year = ?", Long.class, year);
+        if (!completed.isEmpty()) {
+            System.out.printf("donations_%d already holds %,d rows, skipping%n", year, completed.get(0));
+            return 0;
+        }
+        if (tableService.tableExists(year)) {
+            // Left partly loaded by an interrupted run
+            System.out.printf("donations_%d was not completed, reloading%n", year);
+            jdbcTemplate.execute("TRUNCATE TABLE donations_" + year);
+        } else {
+            tableService.createTableForYear(year, false);
+        }
+
+        // Older years had fewer receipts: scale from half to one and a half times the mean
+        int span = Math.max(1, settings.toYear - settings.fromYear);
+        double growth = 0.5 + (double) (year - settings.fromYear) / span;
+        int rows = (int) (settings.rowsPerYear * growth);
+
+        long loadStart = System.nanoTime();
+        List<Future<?>> slices = new ArrayList<>();
+        for (int slice = 0; slice < settings.writers; slice++) {
+            int from = (int) ((long) rows * slice / settings.writers);
+            int to = (int) ((long) rows * (slice + 1) / settings.writers);
+            long seed = settings.seed ^ (year * 1_000_003L + slice);
+            slices.add(writers.submit(() -> writeSlice(year, to - from, new SplittableRandom(seed))));
+        }
+        for (Future<?> slice : slices) {
+            slice.get();
+        }
+        double loadSeconds = (System.nanoTime() - loadStart) / 1e9;
+
+        long indexStart = System.nanoTime();
+        tableService.createIndexesForYear(year);
+        transactionTemplate.executeWithoutResult(status -> tableService.rebuildRollup(year));
+        jdbcTemplate.update("INSERT INTO dataset_generator_years (table_year, row_count) VALUES (?, ?)", year, rows);
+        double indexSeconds = (System.nanoTime() - indexStart) / 1e9;
+
+        System.out.printf("donations_%d: %,9d rows in %6.1f s (%,7.0f rows/s), indexes and rollup %5.1f s%n",
+                year, rows, loadSeconds, rows / loadSeconds, indexSeconds);
+        return rows;
+    }
+
+    /**
+     * Insert one writer's share of a year on its own connection,
+     * committing every batch
+     */
+    private void writeSlice(int year, int rows, SplittableRandom random) {
+        String sql = INSERT_SQL.formatted(year);
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                int pending = 0;
+                for (int i = 0; i < rows; i++) {
+                    bindRow(ps, year, random);
+                    ps.addBatch();
+                    if (++pending == settings.batchSize) {
+                        flush(ps, connection);
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    flush(ps, connection);
+                }
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+            return null;
+        });
+    }
+
+    private static void flush(PreparedStatement ps, Connection connection) throws SQLException {
+        ps.executeBatch();
+        connection.commit();
+    }
+
+    private void bindRow(PreparedStatement ps, int year, SplittableRandom random) throws SQLException {
+        LocalDate date = receiptDate(year, random);
+        LocalDateTime createdAt = date.atTime(8 + random.nextInt(14), random.nextInt(60), random.nextInt(60));
+        boolean marathi = random.nextInt(4) == 0;
+
+        ps.setString(1, donorName(random, marathi));
+        ps.setString(2, address(random, marathi));
+        ps.setString(3, "9" + (100_000_000L + random.nextLong(900_000_000L)));
+        ps.setBigDecimal(4, BigDecimal.valueOf(amount(random)));
+        ps.setString(5, donationType(random));
+        if (random.nextInt(5) == 0) {
+            ps.setString(6, NOTES[random.nextInt(NOTES.length)]);
+        } else {
+            ps.setNull(6, Types.VARCHAR);
+        }
+        ps.setTimestamp(7, Timestamp.valueOf(createdAt));
+        ps.setDate(8, Date.valueOf(date));
+        // A handful of collectors write most receipts
+        ps.setString(9, collectors[skewed(random, collectors.length, 1.8)]);
+        if (random.nextInt(30) == 0) {
+            ps.setTimestamp(10, Timestamp.valueOf(createdAt.plusDays(1 + random.nextInt(10))));
+            ps.setString(11, "Mandal_Admin");
+        } else {
+            ps.setNull(10, Types.TIMESTAMP);
+            ps.setNull(11, Types.VARCHAR);
+        }
+    }
+
+    /**
+     * Most receipts fall in the Ganeshotsav weeks, some around Navratri and
+     * Diwali, the rest anywhere in the year; never after today
+     */
+    private static LocalDate receiptDate(int year, SplittableRandom random) {
+        LocalDate first = LocalDate.of(year, 1, 1);
+        LocalDate last = LocalDate.of(year, 12, 31);
+        if (last.isAfter(LocalDate.now())) {
+            last = LocalDate.now();
+        }
+        LocalDate date;
+        int roll = random.nextInt(100);
+        if (roll < 55) {
+            date = LocalDate.of(year, 8, 20).plusDays(random.nextInt(42));
+        } else if (roll < 70) {
+            date = LocalDate.of(year, 10, 1).plusDays(random.nextInt(46));
+        } else {
+            date = first.plusDays(random.nextInt(first.lengthOfYear()));
+        }
+        if (date.isAfter(last)) {
+            // Current year: spread over the days so far instead
+            date = first.plusDays(random.nextInt((int) (last.toEpochDay() - first.toEpochDay()) + 1));
+        }
+        return date;
+    }
+
+    private static String donorName(SplittableRandom random, boolean marathi) {
+        if (marathi) {
+            return MARATHI_FIRST_NAMES[skewed(random, MARATHI_FIRST_NAMES.length, 2)] + " "
+                    + MARATHI_LAST_NAMES[skewed(random, MARATHI_LAST_NAMES.length, 2)];
+        }
+        return FIRST_NAMES[skewed(random, FIRST_NAMES.length, 2)] + " "
+                + LAST_NAMES[skewed(random, LAST_NAMES.length, 2.5)];
+    }
+
+    private static String address(SplittableRandom random, boolean marathi) {
+        if (marathi) {
+            return (1 + random.nextInt(900)) + ", " + MARATHI_AREAS[random.nextInt(MARATHI_AREAS.length)];
+        }
+        if (random.nextInt(3) == 0) {
+            return "Flat " + (101 + random.nextInt(8) * 100 + random.nextInt(12)) + ", "
+                    + BUILDINGS[random.nextInt(BUILDINGS.length)] + ", " + AREAS[random.nextInt(AREAS.length)];
+        }
+        return (1 + random.nextInt(900)) + ", " + AREAS[skewed(random, AREAS.length, 1.5)];
+    }
+
+    /**
+     * Customary amounts, with a long tail of large sponsorships
+     */
+    private static long amount(SplittableRandom random) {
+        if (random.nextInt(50) == 0) {
+            return 5001L * (1 + random.nextInt(20));
+        }
+        return AMOUNTS[random.nextInt(AMOUNTS.length)];
+    }
+
+    private static String donationType(SplittableRandom random) {
+        int roll = random.nextInt(100);
+        if (roll < 60) {
+            return "Cash";
+        } else if (roll < 85) {
+            return "UPI";
+        } else if (roll < 93) {
+            return "Cheque";
+        } else if (roll < 97) {
+            return "Online Transfer";
+        }
+        return "In Kind";
+    }
+
+    /**
+     * Index in [0, size) biased towards 0; higher exponents skew harder
+     */
+    private static int skewed(SplittableRandom random, int size, double exponent) {
+        return (int) (size * Math.pow(random.nextDouble(), exponent));
+    }
+
+    /**
+     * Command-line settings
+     */
+    static final class Settings {
+
+        String url = "jdbc:h2:file:./target/dataset";
+        String user = "sa";
+        String password = "";
+        int toYear = LocalDate.now().getYear();
+        int fromYear = toYear - 17;
+        int rowsPerYear = 100_000;
+        int writers = Math.max(2, Runtime.getRuntime().availableProcessors());
+        int batchSize = 1000;
+        int collectors = 36;
+        long seed = 20240907L;
+
+        static Settings parse(String[] args) {
+            Settings settings = new Settings();
+            Integer years = null;
+            for (String arg : args) {
+                int eq = arg.indexOf('=');
+                if (!arg.startsWith("--") || eq < 0) {
+                    throw new IllegalArgumentException("Expected --name=value, got " + arg);
+                }
+                String name = arg.substring(2, eq);
+                String value = arg.substring(eq + 1);
+                switch (name) {
+                    case "url" -> settings.url = value;
+                    case "user" -> settings.user = value;
+                    case "password" -> settings.password = value;
+                    case "from-year" -> settings.fromYear = Integer.parseInt(value);
+                    case "to-year" -> settings.toYear = Integer.parseInt(value);
+                    case "years" -> years = Integer.parseInt(value);
+                    case "rows-per-year" -> settings.rowsPerYear = Integer.parseInt(value);
+                    case "writers" -> settings.writers = Integer.parseInt(value);
+                    case "batch-size" -> settings.batchSize = Integer.parseInt(value);
+                    case "collectors" -> settings.collectors = Integer.parseInt(value);
+                    case "seed" -> settings.seed = Long.parseLong(value);
+                    default -> throw new IllegalArgumentException("Unknown option --" + name);
+                }
+            }
+            if (years != null) {
+                settings.fromYear = settings.toYear - years + 1;
+            }
+            if (settings.fromYear > settings.toYear || settings.toYear > LocalDate.now().getYear()) {
+                throw new IllegalArgumentException("Years must run from --from-year up to at most the current year");
+            }
+            if (settings.rowsPerYear <= 0 || settings.writers <= 0 || settings.batchSize <= 0
+                    || settings.collectors <= 0 || settings.collectors > FIRST_NAMES.length * LAST_NAMES.length) {
+                throw new IllegalArgumentException("rows-per-year, writers, batch-size and collectors must be positive"
+                        + " (at most " + FIRST_NAMES.length * LAST_NAMES.length + " collectors)");
+            }
+            return settings;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.app.server.benchmarks;
+
+import com.app.server.dto.DonationResponse;
+import com.app.server.model.Donation;
+import com.app.server.repository.DonationRepository;
+import com.app.server.service.DonationJsonWriter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A whole-year listing from an H2 year table to JSON bytes, both ways the
+ * server can build it: mapping rows to Donation and DonationData and letting
+ * Jackson serialise the DonationResponse (dtoPath), against DonationJsonWriter
+ * writing straight from the result set (streamingWriter). Compare
+ * gc.alloc.rate.norm for the per-row allocation difference.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DonationListWriterBenchmark {
+
+    @Param({"10000"})
+    private int rows;
+
+    private ObjectMapper objectMapper;
+    private DonationRepository repository;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        var jdbcTemplate = BenchmarkDatabase.open();
+        BenchmarkDatabase.seedDonations(jdbcTemplate, rows);
+        repository = BenchmarkDatabase.repository(jdbcTemplate);
+    }
+
+    @Benchmark
+    public byte[] dtoPath() throws Exception {
+        List<Donation> donations = repository.findAllByYear(BenchmarkDatabase.YEAR);
+        List<DonationResponse.DonationData> data = donations.stream()
+                .map(donation -> new DonationResponse.DonationData(donation, true, true))
+                .toList();
+        return objectMapper.writeValueAsBytes(DonationResponse.success("Donations retrieved successfully",
+                data, data.size(), String.valueOf(BenchmarkDatabase.YEAR)));
+    }
+
+    @Benchmark
+    public byte[] streamingWriter() throws Exception {
+        ByteArrayBuilder out = new ByteArrayBuilder();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            DonationJsonWriter writer = new DonationJsonWriter(generator);
+            writer.startList("Donations retrieved successfully");
+            repository.streamRowsByYear(BenchmarkDatabase.YEAR, null, 500, writer);
+            writer.endList(String.valueOf(BenchmarkDatabase.YEAR), true, true);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,63 @@
+package com.app.server.benchmarks;
+
+import com.app.server.dto.DonationResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialisation of a year listing (DonationResponse with DonationData
+ * rows), using an ObjectMapper configured like Spring MVC's
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DonationResponseSerializationBenchmark {
+
+    @Param({"10000"})
+    private int rows;
+
+    private ObjectMapper objectMapper;
+    private DonationResponse response;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        LocalDateTime createdAt = LocalDateTime.of(2024, 9, 1, 10, 0);
+        List<DonationResponse.DonationData> donations = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            boolean updated = i % 4 == 0;
+            donations.add(new DonationResponse.DonationData((long) i + 1, "Donor " + i, "Ganesh Peth, Pune",
+                    "+91 98765 43210", new BigDecimal("101.00"), "Cash", i % 3 == 0 ? "Festival" : null,
+                    createdAt.plusMinutes(i), LocalDate.of(2024, 9, 1), "Bench_Collector",
+                    updated ? createdAt.plusHours(1) : null, updated ? "Bench_Admin" : null, true, false));
+        }
+        response = DonationResponse.success("Donations retrieved", donations, rows, "2024");
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
@@ -0,0 +1,62 @@
+package com.app.server.benchmarks;
+
+import com.app.server.model.Donation;
+import com.app.server.repository.DonationRowMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DonationRepository's row mapper, DonationRowMapper, over an H2 result set.
+ * readOnly walks the same result set touching one column, so mapRows minus
+ * readOnly is the cost of building Donation objects (column lookups by name, Timestamp/Date
+ * conversions, the extra getTimestamp/getString calls for updated_*).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DonationRowMapperBenchmark {
+
+    @Param({"1000"})
+    private int rows;
+
+    private JdbcTemplate jdbcTemplate;
+    private RowMapper<Donation> donationRowMapper;
+    private String selectAll;
+
+    @Setup
+    public void setUp() {
+        jdbcTemplate = BenchmarkDatabase.open();
+        BenchmarkDatabase.seedDonations(jdbcTemplate, rows);
+        selectAll = "SELECT * FROM donations_" + BenchmarkDatabase.YEAR + " ORDER BY id";
+        donationRowMapper = new DonationRowMapper();
+    }
+
+    @Benchmark
+    public List<Donation> mapRows() {
+        return jdbcTemplate.query(selectAll, donationRowMapper);
+    }
+
+    @Benchmark
+    public void readOnly(Blackhole blackhole) {
+        jdbcTemplate.query(selectAll, (RowCallbackHandler) rs -> blackhole.consume(rs.getLong(1)));
+    }
+}
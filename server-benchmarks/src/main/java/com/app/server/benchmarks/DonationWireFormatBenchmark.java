@@ -0,0 +1,86 @@
+package com.app.server.benchmarks;
+
+import com.app.server.config.WireFormatConfig;
+import com.app.server.dto.DonationResponse;
+import com.app.server.repository.DonationRepository;
+import com.app.server.service.DonationJsonWriter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A whole-year listing in each wire format GET /api/donations/{year} can
+ * negotiate: encoding is the server path (DonationJsonWriter over H2 rows),
+ * decoding is a client reading the body into DonationResponse. Setup prints
+ * the payload size, raw and gzipped, for each format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DonationWireFormatBenchmark {
+
+    @Param({"50000"})
+    private int rows;
+
+    @Param({"json", "smile"})
+    private String format;
+
+    private ObjectMapper objectMapper;
+    private DonationRepository repository;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = "smile".equals(format)
+                ? new WireFormatConfig().smileHttpMessageConverter(Jackson2ObjectMapperBuilder.json()).getObjectMapper()
+                : Jackson2ObjectMapperBuilder.json().build();
+        var jdbcTemplate = BenchmarkDatabase.open();
+        BenchmarkDatabase.seedDonations(jdbcTemplate, rows);
+        repository = BenchmarkDatabase.repository(jdbcTemplate);
+
+        payload = encode();
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+            gzip.write(payload);
+        }
+        System.out.printf("%n%s payload for %d rows: %d bytes, %d gzipped%n",
+                format, rows, payload.length, gzipped.size());
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        ByteArrayBuilder out = new ByteArrayBuilder();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            DonationJsonWriter writer = new DonationJsonWriter(generator);
+            writer.startList("Donations retrieved successfully");
+            repository.streamRowsByYear(BenchmarkDatabase.YEAR, null, 500, writer);
+            writer.endList(String.valueOf(BenchmarkDatabase.YEAR), true, true);
+        }
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public DonationResponse decode() throws IOException {
+        return objectMapper.readValue(payload, DonationResponse.class);
+    }
+}
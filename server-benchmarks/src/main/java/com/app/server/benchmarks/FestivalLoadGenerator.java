@@ -0,0 +1,476 @@
+package com.app.server.benchmarks;
+
+import com.app.server.ServerApplication;
+import com.app.server.model.User;
+import com.app.server.service.UserService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load generator with a festival-day traffic profile. Boots ServerApplication
+ * on a private in-memory H2 database, creates collectors and admins, logs
+ * them in through /api/auth/login and replays a weighted mix of creates,
+ * year listings, stats, edits and deletes at a target rate (with a linear
+ * ramp-up, as counters open in the morning).
+ *
+ * Requests are issued on an open-model schedule: latency is measured from
+ * when a request was due, not when a worker got to it, so a stalled server
+ * shows up as latency instead of silently lowering the offered load.
+ *
+ * java -cp target/benchmarks.jar com.app.server.benchmarks.FestivalLoadGenerator \
+ *      --rate=200 --duration=PT2M --ramp=PT30S --collectors=24 \
+ *      --mix=create:60,list:20,stats:10,edit:7,delete:3 \
+ *      --out=load-baseline.json --baseline=previous.json
+ *
+ * Arguments starting with --spring. or --app. are passed to the server, e.g.
+ * --spring.datasource.url=jdbc:mysql://... to run against MySQL.
+ */
+public class FestivalLoadGenerator {
+
+    enum Operation { CREATE, LIST, STATS, EDIT, DELETE }
+
+    private static final String[] FIRST_NAMES = {
+            "Ganesh", "Suresh", "Mahesh", "Sunita", "Anita", "Prakash", "Vijay", "Rekha",
+            "Sachin", "Meena", "Rajesh", "Kavita", "Santosh", "Asha", "Dnyaneshwar", "Savita"};
+    private static final String[] LAST_NAMES = {
+            "Patil", "Deshmukh", "Kulkarni", "Jadhav", "Pawar", "Shinde", "Joshi", "More",
+            "Gaikwad", "Kale", "Chavan", "Bhosale"};
+    private static final String[] AREAS = {
+            "Shaniwar Peth, Pune", "Kasba Peth, Pune", "Sadashiv Peth, Pune", "Kothrud, Pune",
+            "Dadar West, Mumbai", "Girgaon, Mumbai", "Gangapur Road, Nashik", "Rajarampuri, Kolhapur"};
+    // Receipt amounts cluster on customary values
+    private static final int[] AMOUNTS = {11, 21, 51, 101, 101, 151, 201, 251, 251, 501, 501, 1001, 2101, 5001};
+    private static final String[] TYPES = {"Cash", "Cash", "Cash", "UPI", "UPI", "Cheque"};
+
+    private final Settings settings;
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final Map<Operation, LatencyRecorder> recorders = new EnumMap<>(Operation.class);
+    // Donations created during the run, picked at random by edits and deletes
+    private final ConcurrentLinkedDeque<Long> createdIds = new ConcurrentLinkedDeque<>();
+    private final int year = LocalDate.now().getYear();
+
+    private String baseUrl;
+    private List<String> collectorTokens;
+    private List<String> adminTokens;
+
+    FestivalLoadGenerator(Settings settings) {
+        this.settings = settings;
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new LatencyRecorder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Settings settings = Settings.parse(args);
+        try (ConfigurableApplicationContext context = SpringApplication.run(ServerApplication.class,
+                settings.serverArgs.toArray(String[]::new))) {
+            FestivalLoadGenerator generator = new FestivalLoadGenerator(settings);
+            generator.baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            generator.createUsers(context.getBean(UserService.class));
+            generator.run();
+        }
+    }
+
+    /**
+     * Create the collector and admin accounts the run logs in as
+     */
+    private void createUsers(UserService userService) {
+        for (int i = 1; i <= settings.collectors; i++) {
+            createUser(userService, "Collector", i, User.Role.USER);
+        }
+        for (int i = 1; i <= settings.admins; i++) {
+            createUser(userService, "Admin", i, User.Role.ADMIN);
+        }
+    }
+
+    private void createUser(UserService userService, String lastName, int n, User.Role role) {
+        if (userService.findByFirstNameAndLastName("Load" + n, lastName).isPresent()) {
+            return;
+        }
+        User user = new User();
+        user.setFirstName("Load" + n);
+        user.setLastName(lastName);
+        user.setPassword(settings.password);
+        user.setRole(role);
+        user.setPhoneNumber(String.format("7%02d%07d", role == User.Role.ADMIN ? 99 : 0, n));
+        user.setIsActive(true);
+        userService.createUser(user);
+    }
+
+    private void run() throws Exception {
+        collectorTokens = login("Collector", settings.collectors);
+        adminTokens = login("Admin", settings.admins);
+        System.out.printf("Logged in %d collectors and %d admins; %s at %d req/s (ramp %s, warm-up %s)%n",
+                collectorTokens.size(), adminTokens.size(), settings.duration, settings.rate,
+                settings.ramp, settings.warmup);
+
+        ExecutorService workers = Executors.newFixedThreadPool(settings.concurrency);
+        long start = System.nanoTime();
+        long end = start + settings.duration.toNanos();
+        long recordFrom = start + settings.warmup.toNanos();
+        try {
+            long due = start;
+            while (due < end) {
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                long scheduledAt = due;
+                Operation operation = pickOperation();
+                workers.execute(() -> execute(operation, scheduledAt, scheduledAt >= recordFrom));
+                due += intervalNanos(due - start);
+            }
+        } finally {
+            workers.shutdown();
+            workers.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        double measuredSeconds = (end - recordFrom) / 1e9;
+
+        Map<String, Object> report = report(measuredSeconds);
+        printReport(report);
+        Files.writeString(settings.out, objectMapper.writeValueAsString(report));
+        System.out.println("Baseline written to " + settings.out.toAbsolutePath());
+        if (settings.baseline != null) {
+            compare(objectMapper.readTree(settings.baseline.toFile()), report);
+        }
+    }
+
+    /**
+     * Gap to the next request: the rate climbs linearly during the ramp, then holds
+     */
+    private long intervalNanos(long elapsedNanos) {
+        double rate = settings.rate;
+        long rampNanos = settings.ramp.toNanos();
+        if (elapsedNanos < rampNanos) {
+            rate = Math.max(1, settings.rate * (double) elapsedNanos / rampNanos);
+        }
+        return (long) (1e9 / rate);
+    }
+
+    private Operation pickOperation() {
+        int roll = ThreadLocalRandom.current().nextInt(settings.totalWeight);
+        for (Map.Entry<Operation, Integer> entry : settings.mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        return Operation.CREATE;
+    }
+
+    private void execute(Operation picked, long scheduledAt, boolean record) {
+        Operation operation = picked;
+        int status;
+        try {
+            Call call = request(picked);
+            // Recorded and tracked as what was actually sent
+            operation = call.operation();
+            HttpResponse<String> response = httpClient.send(call.request(), HttpResponse.BodyHandlers.ofString());
+            status = response.statusCode();
+            if (operation == Operation.CREATE && status == 201) {
+                createdIds.add(objectMapper.readTree(response.body()).path("data").path("id").asLong());
+            }
+        } catch (IOException e) {
+            status = -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (record) {
+            recorders.get(operation).record(System.nanoTime() - scheduledAt, status);
+        }
+    }
+
+    /**
+     * Build the request for an operation. Returns the operation actually
+     * requested, which differs from the one asked for when it fell back.
+     */
+    private Call request(Operation operation) throws IOException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String collector = collectorTokens.get(random.nextInt(collectorTokens.size()));
+        String admin = adminTokens.get(random.nextInt(adminTokens.size()));
+        String donations = baseUrl + "/api/donations";
+
+        // Edits and deletes fall back to a create until something exists to change
+        Long target = null;
+        if (operation == Operation.EDIT) {
+            target = createdIds.peekLast();
+        } else if (operation == Operation.DELETE) {
+            target = createdIds.pollFirst();
+        }
+        if ((operation == Operation.EDIT || operation == Operation.DELETE) && target == null) {
+            operation = Operation.CREATE;
+        }
+
+        HttpRequest request = switch (operation) {
+            case CREATE -> json(donations, collector).POST(body(donation())).build();
+            case LIST -> json(donations + "/" + year
+                    + (settings.listLimit > 0 ? "?limit=" + settings.listLimit : ""), collector).GET().build();
+            case STATS -> json(donations + "/" + year + "/stats", admin).GET().build();
+            case EDIT -> json(donations + "/" + year + "/" + target, admin).PUT(body(donation())).build();
+            case DELETE -> json(donations + "/" + year + "/" + target, admin).DELETE().build();
+        };
+        return new Call(operation, request);
+    }
+
+    private record Call(Operation operation, HttpRequest request) {}
+
+    private HttpRequest.Builder json(String url, String token) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + token);
+    }
+
+    private HttpRequest.BodyPublisher body(Object value) throws IOException {
+        return HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(value));
+    }
+
+    private Map<String, Object> donation() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // A few families account for a large share of receipts
+        int first = (int) (FIRST_NAMES.length * Math.pow(random.nextDouble(), 2));
+        int last = (int) (LAST_NAMES.length * Math.pow(random.nextDouble(), 2));
+        Map<String, Object> donation = new LinkedHashMap<>();
+        donation.put("donorName", FIRST_NAMES[first] + " " + LAST_NAMES[last]);
+        donation.put("donorAddress", (1 + random.nextInt(900)) + ", " + AREAS[random.nextInt(AREAS.length)]);
+        donation.put("donorPhone", "9" + (100_000_000L + random.nextLong(900_000_000L)));
+        donation.put("donationAmount", AMOUNTS[random.nextInt(AMOUNTS.length)]);
+        donation.put("donationType", TYPES[random.nextInt(TYPES.length)]);
+        if (random.nextInt(5) == 0) {
+            donation.put("notes", "Ganeshotsav vargani");
+        }
+        return donation;
+    }
+
+    private List<String> login(String lastName, int count) throws Exception {
+        List<String> tokens = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            Map<String, String> credentials = Map.of("name", "Load" + i + "_" + lastName, "password", settings.password);
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+                    .header("Content-Type", "application/json")
+                    .POST(body(credentials))
+                    .build();
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Login failed for Load" + i + "_" + lastName + ": " + response.body());
+            }
+            tokens.add(objectMapper.readTree(response.body()).path("token").asText());
+        }
+        return tokens;
+    }
+
+    private Map<String, Object> report(double seconds) {
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        long total = 0;
+        for (Map.Entry<Operation, LatencyRecorder> entry : recorders.entrySet()) {
+            LatencyRecorder.Summary summary = entry.getValue().summarize();
+            if (summary.count() == 0) {
+                continue;
+            }
+            total += summary.count();
+            Map<String, Object> endpoint = new LinkedHashMap<>();
+            endpoint.put("requests", summary.count());
+            endpoint.put("errors", summary.errors());
+            endpoint.put("throughput", round(summary.count() / seconds));
+            endpoint.put("p50Ms", round(summary.p50Nanos() / 1e6));
+            endpoint.put("p95Ms", round(summary.p95Nanos() / 1e6));
+            endpoint.put("p99Ms", round(summary.p99Nanos() / 1e6));
+            endpoint.put("maxMs", round(summary.maxNanos() / 1e6));
+            endpoint.put("statuses", summary.statuses());
+            endpoints.put(entry.getKey().name().toLowerCase(), endpoint);
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", Instant.now().toString());
+        report.put("targetRate", settings.rate);
+        report.put("measuredSeconds", round(seconds));
+        report.put("throughput", round(total / seconds));
+        report.put("collectors", settings.collectors);
+        report.put("mix", settings.mixSpec);
+        report.put("endpoints", endpoints);
+        return report;
+    }
+
+    private void printReport(Map<String, Object> report) {
+        System.out.printf("%nThroughput: %s req/s (target %s)%n", report.get("throughput"), report.get("targetRate"));
+        System.out.printf("%-8s %9s %8s %10s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        @SuppressWarnings("unchecked")
+        Map<String, Map<String, Object>> endpoints = (Map<String, Map<String, Object>>) report.get("endpoints");
+        endpoints.forEach((name, e) -> System.out.printf("%-8s %9s %8s %10s %9s %9s %9s %9s%n", name,
+                e.get("requests"), e.get("errors"), e.get("throughput"),
+                e.get("p50Ms"), e.get("p95Ms"), e.get("p99Ms"), e.get("maxMs")));
+    }
+
+    /**
+     * Print p99 and throughput changes against an earlier baseline file
+     */
+    private void compare(JsonNode baseline, Map<String, Object> report) {
+        System.out.printf("%nAgainst baseline from %s:%n", baseline.path("timestamp").asText());
+        @SuppressWarnings("unchecked")
+        Map<String, Map<String, Object>> endpoints = (Map<String, Map<String, Object>>) report.get("endpoints");
+        endpoints.forEach((name, current) -> {
+            JsonNode previous = baseline.path("endpoints").path(name);
+            if (previous.isMissingNode()) {
+                return;
+            }
+            System.out.printf("%-8s p99 %8.2f -> %8.2f ms (%+.0f%%)   throughput %8.1f -> %8.1f req/s%n", name,
+                    previous.path("p99Ms").asDouble(), (double) current.get("p99Ms"),
+                    percentChange(previous.path("p99Ms").asDouble(), (double) current.get("p99Ms")),
+                    previous.path("throughput").asDouble(), (double) current.get("throughput"));
+        });
+    }
+
+    private static double percentChange(double before, double after) {
+        return before == 0 ? 0 : (after - before) * 100 / before;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    /**
+     * Latencies and status codes of one endpoint
+     */
+    static final class LatencyRecorder {
+
+        private long[] latencies = new long[1024];
+        private int count;
+        private int errors;
+        private final Map<Integer, Integer> statuses = new LinkedHashMap<>();
+
+        synchronized void record(long nanos, int status) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            statuses.merge(status, 1, Integer::sum);
+            if (status < 200 || status >= 300) {
+                errors++;
+            }
+        }
+
+        synchronized Summary summarize() {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return new Summary(count, errors, percentile(sorted, 50), percentile(sorted, 95),
+                    percentile(sorted, 99), count > 0 ? sorted[count - 1] : 0, new LinkedHashMap<>(statuses));
+        }
+
+        private static long percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+
+        record Summary(int count, int errors, long p50Nanos, long p95Nanos, long p99Nanos, long maxNanos,
+                       Map<Integer, Integer> statuses) {}
+    }
+
+    /**
+     * Command-line settings; --spring.* and --app.* arguments go to the server
+     */
+    static final class Settings {
+
+        int rate = 100;
+        Duration duration = Duration.ofSeconds(60);
+        Duration ramp = Duration.ofSeconds(10);
+        Duration warmup = Duration.ofSeconds(10);
+        int collectors = 24;
+        int admins = 2;
+        int concurrency = 64;
+        int listLimit = 50;
+        String password = "loadtest123";
+        String mixSpec = "create:60,list:20,stats:10,edit:7,delete:3";
+        Map<Operation, Integer> mix;
+        int totalWeight;
+        Path out = Path.of("load-baseline.json");
+        Path baseline;
+        List<String> serverArgs = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.show-sql=false",
+                "--spring.h2.console.enabled=false",
+                "--logging.level.com.app.server=WARN",
+                "--logging.level.org.springframework.security=WARN"));
+
+        static Settings parse(String[] args) {
+            Settings settings = new Settings();
+            for (String arg : args) {
+                if (arg.startsWith("--spring.") || arg.startsWith("--app.") || arg.startsWith("--logging.")) {
+                    settings.serverArgs.add(arg);
+                    continue;
+                }
+                int eq = arg.indexOf('=');
+                if (!arg.startsWith("--") || eq < 0) {
+                    throw new IllegalArgumentException("Expected --name=value, got " + arg);
+                }
+                String name = arg.substring(2, eq);
+                String value = arg.substring(eq + 1);
+                switch (name) {
+                    case "rate" -> settings.rate = Integer.parseInt(value);
+                    case "duration" -> settings.duration = Duration.parse(value);
+                    case "ramp" -> settings.ramp = Duration.parse(value);
+                    case "warmup" -> settings.warmup = Duration.parse(value);
+                    case "collectors" -> settings.collectors = Integer.parseInt(value);
+                    case "admins" -> settings.admins = Integer.parseInt(value);
+                    case "concurrency" -> settings.concurrency = Integer.parseInt(value);
+                    case "list-limit" -> settings.listLimit = Integer.parseInt(value);
+                    case "password" -> settings.password = value;
+                    case "mix" -> settings.mixSpec = value;
+                    case "out" -> settings.out = Path.of(value);
+                    case "baseline" -> settings.baseline = Path.of(value);
+                    default -> throw new IllegalArgumentException("Unknown option --" + name);
+                }
+            }
+            settings.mix = parseMix(settings.mixSpec);
+            settings.totalWeight = settings.mix.values().stream().mapToInt(Integer::intValue).sum();
+            if (settings.totalWeight <= 0 || settings.rate <= 0 || settings.collectors <= 0 || settings.admins <= 0) {
+                throw new IllegalArgumentException("rate, collectors, admins and mix weights must be positive");
+            }
+            return settings;
+        }
+
+        private static Map<Operation, Integer> parseMix(String spec) {
+            Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+            for (String part : spec.split(",")) {
+                String[] weight = part.trim().split(":");
+                mix.put(Operation.valueOf(weight[0].trim().toUpperCase()), Integer.parseInt(weight[1].trim()));
+            }
+            return mix;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.app.server.benchmarks;
+
+import com.app.server.model.User;
+import com.app.server.repository.TokenRevocationRepository;
+import com.app.server.service.JwtService;
+import com.app.server.service.TokenRevocationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issue and verification. verifyCached is the per-request path for a
+ * token seen before (digest, cache lookup, revocation filter); verifyParse
+ * uses a service with no verified-token cache, so every call parses JSON and
+ * checks the HMAC signature.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private static final String SECRET = "benchmark-secret-key-that-is-at-least-256-bits-long";
+
+    private JwtService cachingService;
+    private JwtService parsingService;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() throws Exception {
+        JdbcTemplate jdbcTemplate = BenchmarkDatabase.open();
+        TokenRevocationRepository revocationRepository = new TokenRevocationRepository(jdbcTemplate);
+        revocationRepository.createTableIfNotExists();
+        TokenRevocationService revocationService = new TokenRevocationService(revocationRepository,
+                86_400_000L, 10_000, 0.01, 10_000, new SimpleMeterRegistry());
+        revocationService.rebuild();
+
+        cachingService = jwtService(revocationService, 10_000);
+        parsingService = jwtService(revocationService, 0);
+
+        user = new User();
+        user.setId(42L);
+        user.setFirstName("Bench");
+        user.setLastName("User");
+        user.setRole(User.Role.USER);
+        token = cachingService.generateToken(user);
+    }
+
+    private static JwtService jwtService(TokenRevocationService revocationService, int cacheSize) throws Exception {
+        JwtService service = new JwtService(revocationService, new SimpleMeterRegistry());
+        setField(service, "jwtSecret", SECRET);
+        setField(service, "jwtExpiration", 86_400_000L);
+        setField(service, "verifiedCacheSize", cacheSize);
+        service.init();
+        return service;
+    }
+
+    private static void setField(Object target, String name, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return cachingService.generateToken(user);
+    }
+
+    @Benchmark
+    public JwtService.VerifiedToken verifyCached() {
+        return cachingService.verifyToken(token);
+    }
+
+    @Benchmark
+    public JwtService.VerifiedToken verifyParse() {
+        return parsingService.verifyToken(token);
+    }
+
+    @Benchmark
+    public Boolean validateToken() {
+        return cachingService.validateToken(token, "Bench_User");
+    }
+}
@@ -0,0 +1,63 @@
+package com.app.server.benchmarks;
+
+import com.app.server.dto.DonationRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * DonationRequest phone helpers, which call String.replaceAll and so compile
+ * a regex on every call. The precompiled variants apply the same patterns
+ * from static Pattern constants, as the reference for that overhead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PhoneValidationBenchmark {
+
+    private static final Pattern NON_DIGITS = Pattern.compile("[^0-9]");
+    private static final Pattern NON_PHONE_CHARS = Pattern.compile("[^0-9+\\-\\s()]");
+
+    private DonationRequest request;
+
+    @Setup
+    public void setUp() {
+        request = new DonationRequest("Donor", "Ganesh Peth, Pune", "+91 (98765) 43210",
+                new BigDecimal("101.00"), "Cash", null);
+    }
+
+    @Benchmark
+    public boolean isValidPhoneFormat() {
+        return request.isValidPhoneFormat();
+    }
+
+    @Benchmark
+    public String getCleanPhoneNumber() {
+        return request.getCleanPhoneNumber();
+    }
+
+    @Benchmark
+    public boolean isValidPhoneFormatPrecompiled() {
+        String digits = NON_DIGITS.matcher(request.getDonorPhone()).replaceAll("");
+        return digits.length() >= 10 && digits.length() <= 15;
+    }
+
+    @Benchmark
+    public String getCleanPhoneNumberPrecompiled() {
+        return NON_PHONE_CHARS.matcher(request.getDonorPhone()).replaceAll("").trim();
+    }
+}
@@ -0,0 +1,70 @@
+package com.app.server.config;
+
+import com.app.server.dto.DonationImportResponse;
+import com.app.server.service.DonationImportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Command-line CSV import, for backfills too large to upload:
+ *
+ * java -jar server-0.0.1-SNAPSHOT-exec.jar --spring.main.web-application-type=none \
+ *      --app.donations.import.file=pavti-books.csv --app.donations.import.id=pavti-books-2008-2019
+ *
+ * Running the same command again resumes after the last committed row.
+ * The application exits once the import is done; a failed or interrupted
+ * import fails startup, so the exit code is non-zero.
+ */
+@Component
+@ConditionalOnProperty(name = "app.donations.import.file")
+@RequiredArgsConstructor
+@Slf4j
+public class DonationImportRunner implements CommandLineRunner {
+
+    private final DonationImportService donationImportService;
+    private final ApplicationContext applicationContext;
+
+    @Value("${app.donations.import.file}")
+    private Path file;
+
+    @Value("${app.donations.import.id:}")
+    private String importId;
+
+    @Value("${app.donations.import.created-by:Import}")
+    private String createdBy;
+
+    @Override
+    public void run(String... args) throws Exception {
+        // Default the import ID to the file name so reruns of the same file resume
+        String id = importId;
+        if (id.isBlank()) {
+            id = file.getFileName().toString().replaceAll("[^A-Za-z0-9._-]", "_");
+            id = id.substring(0, Math.min(id.length(), 64));
+        }
+        log.info("Importing donations from {} as import {}", file, id);
+
+        DonationImportResponse response;
+        try (InputStream in = Files.newInputStream(file)) {
+            response = donationImportService.importCsv(id, in, createdBy);
+        }
+
+        log.info("Import {}: {} rows read, {} imported, {} rejected (resumed after {}), errors in {}",
+                id, response.getRowsRead(), response.getImported(), response.getFailed(),
+                response.getResumedFrom(), response.getErrorFile());
+        if (!response.isSuccess()) {
+            throw new IllegalStateException(response.getMessage());
+        }
+        // Scheduler threads would otherwise keep the JVM alive
+        System.exit(SpringApplication.exit(applicationContext));
+    }
+}
@@ -0,0 +1,95 @@
+package com.app.server.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Timers around every public DonationRepository and DonationTableService
+ * method, tagged by operation (method name), year table and outcome, with
+ * percentile histograms so p99 per year table can be read from Prometheus.
+ * Methods returning rows also record how many rows they returned.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class DonationMetricsAspect {
+
+    private final MeterRegistry meterRegistry;
+
+    @Around("execution(public * com.app.server.repository.DonationRepository.*(..))")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("donations.repository", joinPoint);
+    }
+
+    @Around("execution(public * com.app.server.service.DonationTableService.*(..))")
+    public Object timeTableService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("donations.table", joinPoint);
+    }
+
+    private Object time(String name, ProceedingJoinPoint joinPoint) throws Throwable {
+        String operation = joinPoint.getSignature().getName();
+        String year = yearOf(joinPoint);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            Object result = joinPoint.proceed();
+            recordRows(name, operation, year, result);
+            return result;
+        } catch (Throwable e) {
+            outcome = "error";
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(name)
+                    .tag("operation", operation)
+                    .tag("year", year)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    private void recordRows(String name, String operation, String year, Object result) {
+        int rows;
+        if (result instanceof Collection<?> collection) {
+            rows = collection.size();
+        } else if (result instanceof Optional<?> optional) {
+            rows = optional.isPresent() ? 1 : 0;
+        } else {
+            return;
+        }
+        DistributionSummary.builder(name + ".rows")
+                .baseUnit("rows")
+                .tag("operation", operation)
+                .tag("year", year)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(rows);
+    }
+
+    /**
+     * Value of the method's "year" parameter, or "none" for methods not tied to one
+     * table; implausible years share one tag so bad input cannot add series
+     */
+    private static String yearOf(ProceedingJoinPoint joinPoint) {
+        String[] names = ((MethodSignature) joinPoint.getSignature()).getParameterNames();
+        Object[] args = joinPoint.getArgs();
+        if (names != null) {
+            for (int i = 0; i < names.length; i++) {
+                if ("year".equals(names[i]) && args[i] instanceof Integer year) {
+                    return year >= 2000 && year <= 2999 ? year.toString() : "other";
+                }
+            }
+        }
+        return "none";
+    }
+}
@@ -1,13 +1,18 @@
 package com.app.server.config;
 
+import com.app.server.repository.DonationIdempotencyRepository;
+import com.app.server.repository.DonationRepository;
+import com.app.server.repository.DonationTombstoneRepository;
 import com.app.server.service.DonationTableService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
@@ -17,6 +22,15 @@ import java.time.LocalDateTime;
 public class DonationScheduler {
 
     private final DonationTableService donationTableService;
+    private final DonationRepository donationRepository;
+    private final DonationTombstoneRepository donationTombstoneRepository;
+    private final DonationIdempotencyRepository donationIdempotencyRepository;
+
+    @Value("${app.donations.tombstone-retention:P90D}")
+    private Duration tombstoneRetention;
+
+    @Value("${app.donations.idempotency-retention:P30D}")
+    private Duration idempotencyRetention;
 
     /**
      * Initialize donation table for current year on application startup
@@ -40,6 +54,26 @@ public class DonationScheduler {
         }
     }
 
+    /**
+     * Add missing indexes and build the daily rollup for any year table that
+     * does not have one yet, e.g. tables created before these existed
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeMissingRollups() {
+        donationTableService.ensureIndexesForExistingTables();
+
+        for (Integer year : donationTableService.getExistingTableYears()) {
+            try {
+                if (!donationTableService.hasRollup(year)) {
+                    log.info("Building missing donation rollup for year {}", year);
+                    donationTableService.rebuildRollup(year);
+                }
+            } catch (Exception e) {
+                log.error("Failed to build donation rollup for year {}: {}", year, e.getMessage());
+            }
+        }
+    }
+
     /**
      * Daily check to ensure current year table exists
      * Runs every day at 1:00 AM
@@ -50,6 +84,8 @@ public class DonationScheduler {
             int currentYear = LocalDate.now().getYear();
             log.debug("Daily check: Ensuring donation table exists for year {}", currentYear);
             
+            // Pick up tables created by other instances sharing the database
+            donationTableService.refreshRegistry();
             donationTableService.ensureTableExistsForYear(currentYear);
             
             log.debug("Daily table check completed successfully for year {}", currentYear);
@@ -95,8 +131,8 @@ public class DonationScheduler {
             for (Integer year : existingYears) {
                 try {
                     var stats = donationTableService.getTableStats(year);
-                    log.info("Year {} statistics: {} records, first: {}, last: {}", 
-                            stats.year(), stats.totalRecords(), 
+                    log.info("Year {} statistics: {} records, total: {}, first: {}, last: {}", 
+                            stats.year(), stats.totalRecords(), stats.totalAmount(),
                             stats.firstDonationDate(), stats.lastDonationDate());
                 } catch (Exception e) {
                     log.warn("Failed to get statistics for year {}: {}", year, e.getMessage());
@@ -107,6 +143,12 @@ public class DonationScheduler {
             int currentYear = LocalDate.now().getYear();
             donationTableService.ensureTableExistsForYear(currentYear);
             
+            // Drop delete records that no sync cursor can still need; they are stamped by the database clock
+            donationTombstoneRepository.purgeOlderThan(donationRepository.databaseNow().minus(tombstoneRetention));
+
+            // Keep the batch upload dedupe store bounded
+            donationIdempotencyRepository.purgeOlderThan(LocalDateTime.now().minus(idempotencyRetention));
+            
             log.info("Weekly maintenance completed successfully");
             
         } catch (Exception e) {
@@ -137,6 +179,7 @@ public class DonationScheduler {
                 var currentYearStats = donationTableService.getTableStats(currentYear);
                 log.info("Current Year ({}) Statistics:", currentYear);
                 log.info("  - Total Records: {}", currentYearStats.totalRecords());
+                log.info("  - Total Amount: {}", currentYearStats.totalAmount());
                 log.info("  - First Donation: {}", currentYearStats.firstDonationDate());
                 log.info("  - Last Donation: {}", currentYearStats.lastDonationDate());
             } else {
@@ -1,16 +1,18 @@
 package com.app.server.config;
 
+import com.app.server.security.CalibratedPasswordEncoder;
 import com.app.server.security.JwtAuthenticationEntryPoint;
 import com.app.server.security.JwtAuthenticationFilter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -18,6 +20,7 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 
@@ -30,9 +33,27 @@ public class SecurityConfig {
     private final JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    @Value("${app.auth.bcrypt.strength:0}")
+    private int bcryptStrength;
+
+    @Value("${app.auth.bcrypt.target-latency:PT0.25S}")
+    private Duration bcryptTargetLatency;
+
+    @Value("${app.auth.bcrypt.min-strength:10}")
+    private int bcryptMinStrength;
+
+    @Value("${app.auth.bcrypt.max-strength:14}")
+    private int bcryptMaxStrength;
+
+    /**
+     * BCrypt with a cost calibrated to this machine, unless a fixed strength is configured
+     */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        if (bcryptStrength > 0) {
+            return new CalibratedPasswordEncoder(bcryptStrength);
+        }
+        return CalibratedPasswordEncoder.calibrate(bcryptTargetLatency, bcryptMinStrength, bcryptMaxStrength);
     }
 
     @Bean
@@ -75,6 +96,8 @@ public class SecurityConfig {
         configuration.setAllowedOriginPatterns(List.of("*"));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
+        // Let browser clients read ETags for conditional GETs
+        configuration.setExposedHeaders(List.of(HttpHeaders.ETAG));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
 
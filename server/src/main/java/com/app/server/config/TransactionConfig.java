@@ -0,0 +1,35 @@
+package com.app.server.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+/**
+ * The shared TransactionTemplate every donation write runs through (single
+ * saves, batches, write-behind groups, import chunks, edits and deletes).
+ * Writes are bounded by app.donations.write-timeout: delta sync trusts that
+ * a row stamped at time t has committed by t + sync-lag, so the lag must be
+ * longer than the longest write transaction.
+ */
+@Configuration
+@Slf4j
+public class TransactionConfig {
+
+    @Bean
+    public TransactionTemplate transactionTemplate(PlatformTransactionManager transactionManager,
+                                                   @Value("${app.donations.write-timeout:PT10S}") Duration writeTimeout,
+                                                   @Value("${app.donations.sync-lag:PT15S}") Duration syncLag) {
+        if (syncLag.compareTo(writeTimeout) <= 0) {
+            log.warn("app.donations.sync-lag ({}) is not longer than app.donations.write-timeout ({}); "
+                    + "delta sync can miss rows from slow write transactions", syncLag, writeTimeout);
+        }
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setTimeout((int) Math.max(1, writeTimeout.toSeconds()));
+        return transactionTemplate;
+    }
+}
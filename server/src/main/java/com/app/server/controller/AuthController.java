@@ -4,10 +4,15 @@ import com.app.server.dto.LoginRequest;
 import com.app.server.dto.LoginResponse;
 import com.app.server.model.User;
 import com.app.server.service.JwtService;
+import com.app.server.service.LoginAdmissionService;
+import com.app.server.service.TokenRevocationService;
+import com.app.server.service.UserProfileCache;
 import com.app.server.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -15,6 +20,7 @@ import org.springframework.web.bind.annotation.*;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -25,26 +31,47 @@ public class AuthController {
 
     private final UserService userService;
     private final JwtService jwtService;
+    private final LoginAdmissionService loginAdmissionService;
+    private final TokenRevocationService tokenRevocationService;
 
     /**
      * User login endpoint
+     * Password checks run on a bounded hashing pool; a full queue or too many
+     * recent failures for the name/IP answer 429 without hashing
      */
     @PostMapping("/login")
-    public ResponseEntity<LoginResponse> login(@Valid @RequestBody LoginRequest loginRequest) {
+    public ResponseEntity<LoginResponse> login(@Valid @RequestBody LoginRequest loginRequest,
+                                               HttpServletRequest request) {
         log.info("Login attempt for user: {}", loginRequest.getName());
+        String clientIp = request.getRemoteAddr();
+
+        long retryAfter = loginAdmissionService.retryAfterSeconds(loginRequest.getName(), clientIp);
+        if (retryAfter > 0) {
+            log.warn("Login throttled for user: {} from {}", loginRequest.getName(), clientIp);
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                    .body(LoginResponse.failure("Too many failed login attempts. Please try again later."));
+        }
 
         try {
             LoginResponse response = userService.authenticateUser(loginRequest);
 
             if (response.isSuccess()) {
+                loginAdmissionService.recordSuccess(loginRequest.getName(), clientIp);
                 log.info("Login successful for user: {} with role: {}",
                         response.getFullName(), response.getRole());
                 return ResponseEntity.ok(response);
             } else {
+                loginAdmissionService.recordFailure(loginRequest.getName(), clientIp);
                 log.warn("Login failed for user: {}", loginRequest.getName());
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
             }
 
+        } catch (RejectedExecutionException e) {
+            log.warn("Login rejected for user: {}: {}", loginRequest.getName(), e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(LoginResponse.failure("Too many login attempts in progress. Please try again shortly."));
         } catch (Exception e) {
             log.error("Login error for user: {}", loginRequest.getName(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -54,6 +81,8 @@ public class AuthController {
 
     /**
      * Validate token endpoint
+     * Also rejects tokens of users deactivated since the token was issued;
+     * the account check is served from the profile cache
      */
     @PostMapping("/validate")
     public ResponseEntity<Map<String, Object>> validateToken(@RequestHeader("Authorization") String authHeader) {
@@ -67,14 +96,17 @@ public class AuthController {
             }
 
             String token = authHeader.substring(7);
-            String fullName = jwtService.extractFullName(token);
-            String role = jwtService.extractRole(token);
+            JwtService.VerifiedToken verified = jwtService.verifyToken(token);
+            boolean active = verified != null && userService.findProfile(verified.firstName(), verified.lastName())
+                    .map(UserProfileCache.UserProfile::active)
+                    .orElse(false);
 
-            if (jwtService.validateToken(token, fullName)) {
+            if (active) {
+                String role = verified.role();
                 response.put("valid", true);
-                response.put("fullName", fullName);
-                response.put("firstName", jwtService.extractFirstName(token));
-                response.put("lastName", jwtService.extractLastName(token));
+                response.put("fullName", verified.fullName());
+                response.put("firstName", verified.firstName());
+                response.put("lastName", verified.lastName());
                 response.put("role", role);
                 response.put("redirectTo", role.equals("ADMIN") ? "HomePage" : "DonationsPage");
                 return ResponseEntity.ok(response);
@@ -93,10 +125,18 @@ public class AuthController {
     }
 
     /**
-     * Logout endpoint (client-side token removal)
+     * Logout endpoint; the client drops its token and a valid presented token is revoked
      */
     @PostMapping("/logout")
-    public ResponseEntity<Map<String, String>> logout() {
+    public ResponseEntity<Map<String, String>> logout(
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            JwtService.VerifiedToken verified = jwtService.verifyToken(authHeader.substring(7));
+            if (verified != null) {
+                tokenRevocationService.revokeToken(verified);
+            }
+        }
+
         Map<String, String> response = new HashMap<>();
         response.put("message", "Logout successful");
         return ResponseEntity.ok(response);
@@ -116,20 +156,19 @@ public class AuthController {
             }
 
             String token = authHeader.substring(7);
-            String fullName = jwtService.extractFullName(token);
-            String firstName = jwtService.extractFirstName(token);
-            String lastName = jwtService.extractLastName(token);
+            JwtService.VerifiedToken verified = jwtService.verifyToken(token);
 
-            if (jwtService.validateToken(token, fullName)) {
-                User user = userService.findByFirstNameAndLastName(firstName, lastName).orElse(null);
+            if (verified != null) {
+                String fullName = verified.fullName();
+                UserProfileCache.UserProfile user = userService.findProfile(verified.firstName(), verified.lastName()).orElse(null);
                 if (user != null) {
-                    response.put("id", user.getId());
+                    response.put("id", user.id());
                     response.put("fullName", fullName);
-                    response.put("role", user.getRole());
-                    response.put("firstName", user.getFirstName());
-                    response.put("lastName", user.getLastName());
-                    response.put("phoneNumber", user.getPhoneNumber());
-                    response.put("isActive", user.getIsActive());
+                    response.put("role", user.role());
+                    response.put("firstName", user.firstName());
+                    response.put("lastName", user.lastName());
+                    response.put("phoneNumber", user.phoneNumber());
+                    response.put("isActive", user.active());
                     return ResponseEntity.ok(response);
                 }
             }
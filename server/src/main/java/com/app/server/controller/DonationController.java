@@ -1,18 +1,43 @@
 package com.app.server.controller;
 
+import com.app.server.dto.DonationAnalyticsResponse;
+import com.app.server.dto.DonationBatchRequest;
+import com.app.server.dto.DonationBatchResponse;
+import com.app.server.dto.DonationChangesResponse;
+import com.app.server.dto.DonationImportResponse;
 import com.app.server.dto.DonationRequest;
 import com.app.server.dto.DonationResponse;
+import com.app.server.repository.DonationYearVersions;
+import com.app.server.service.ClosedYearResponseCache;
+import com.app.server.service.DonationAnalyticsCache;
+import com.app.server.service.DonationImportService;
 import com.app.server.service.DonationService;
 import com.app.server.service.DonationTableService;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -23,8 +48,18 @@ import java.util.Map;
 @CrossOrigin(origins = "*", maxAge = 3600)
 public class DonationController {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
     private final DonationService donationService;
     private final DonationTableService donationTableService;
+    private final DonationImportService donationImportService;
+    private final ClosedYearResponseCache closedYearResponseCache;
+    private final DonationYearVersions donationYearVersions;
+    private final MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter;
+    private final ObjectMapper objectMapper;
+    private final DonationAnalyticsCache donationAnalyticsCache;
 
     /**
      * Create a new donation entry
@@ -44,15 +79,138 @@ public class DonationController {
         }
     }
 
+    /**
+     * Upload a batch of receipts queued offline
+     * Each receipt carries a client-generated idempotency key, so retrying an
+     * upload does not create duplicates; results are reported per receipt
+     * Available to both ADMIN and USER roles
+     */
+    @PostMapping("/batch")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
+    public ResponseEntity<DonationBatchResponse> createDonationsBatch(@Valid @RequestBody DonationBatchRequest request) {
+        log.info("Creating batch of {} donations", request.getItems().size());
+
+        DonationBatchResponse response = donationService.createDonationsBatch(request);
+
+        if (response.isSuccess()) {
+            return ResponseEntity.ok(response);
+        } else {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        }
+    }
+
+    /**
+     * Import digitised paper receipt books from a CSV request body
+     * Rows are routed to the year table of their receipt date; rejected rows
+     * are written to the import's error file. Sending the same file again
+     * with the same importId resumes after the last committed row
+     * Available only to ADMIN role
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<DonationImportResponse> importDonations(@RequestParam String importId,
+                                                                  InputStream body,
+                                                                  Authentication authentication) {
+        log.info("Importing donations from CSV as import {}", importId);
+
+        DonationImportResponse response = donationImportService.importCsv(importId, body, authentication.getName());
+
+        if (response.isSuccess()) {
+            return ResponseEntity.ok(response);
+        } else {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        }
+    }
+
+    /**
+     * Download the rejected rows of a CSV import, with line numbers and reasons
+     * Available only to ADMIN role
+     */
+    @GetMapping("/import/{importId}/errors")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Resource> getImportErrors(@PathVariable String importId) {
+        return donationImportService.findErrorFile(importId)
+                .<ResponseEntity<Resource>>map(path -> ResponseEntity.ok()
+                        .contentType(MediaType.parseMediaType("text/csv"))
+                        .body(new FileSystemResource(path)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Get donations created between two dates, inclusive
+     * Only the year tables overlapping the range are queried
+     * ADMIN: Can see all donations in the range
+     * USER: Can see only their own donations in the range
+     */
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
+    public ResponseEntity<DonationResponse> getDonationsByDateRange(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Integer limit) {
+        log.info("Retrieving donations between {} and {} (limit: {})", from, to, limit);
+        
+        if (from.isAfter(to)) {
+            DonationResponse errorResponse = DonationResponse.failure("Invalid range. 'from' must not be after 'to'");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        }
+        if (limit != null && (limit < 1 || limit > MAX_PAGE_SIZE)) {
+            DonationResponse errorResponse = DonationResponse.failure("Invalid limit. Limit must be between 1 and " + MAX_PAGE_SIZE);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        }
+        
+        DonationResponse response = donationService.getDonationsByDateRange(from, to, limit);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Delta sync for offline clients: donations created, updated or deleted
+     * since the given cursor, across all years
+     * Call without since to get a starting cursor
+     * ADMIN: Sees changes to all donations
+     * USER: Sees changes to their own donations
+     */
+    @GetMapping("/changes")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
+    public ResponseEntity<DonationChangesResponse> getChanges(@RequestParam(required = false) String since) {
+        log.info("Retrieving donation changes since cursor: {}", since);
+        
+        DonationChangesResponse response = donationService.getChangesSince(since);
+        
+        if (response.isSuccess()) {
+            return ResponseEntity.ok(response);
+        } else {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        }
+    }
+
     /**
      * Get donations for a specific year
      * ADMIN: Can see all donations for the year
      * USER: Can see only their own donations for the year
+     * Pass limit and/or pageToken for keyset-paged results; without them the
+     * whole year is written straight from the rows, with canEdit/canDelete
+     * once on the list rather than on each donation. Whole closed years are
+     * served from pre-serialised bodies, gzip-compressed when the client
+     * accepts it.
+     * Responses carry an ETag from the year's change version, the caller's
+     * view and the negotiated format; a matching If-None-Match is answered
+     * 304 without querying.
+     * Clients preferring application/x-jackson-smile get the same response
+     * as Smile (binary JSON) instead
      */
     @GetMapping("/{year}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
-    public ResponseEntity<DonationResponse> getDonationsByYear(@PathVariable int year) {
-        log.info("Retrieving donations for year: {}", year);
+    public ResponseEntity<?> getDonationsByYear(
+            @PathVariable int year,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String pageToken,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            Authentication authentication,
+            WebRequest webRequest,
+            HttpServletResponse servletResponse) throws IOException {
+        log.info("Retrieving donations for year: {} (limit: {}, paged: {})", year, limit, pageToken != null);
         
         // Validate year
         int currentYear = LocalDate.now().getYear();
@@ -60,24 +218,192 @@ public class DonationController {
             DonationResponse errorResponse = DonationResponse.failure("Invalid year. Year must be between 2000 and " + (currentYear + 1));
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
         }
+
+        MediaType contentType = negotiatedType(accept);
+        boolean smile = SMILE.equals(contentType);
+        String etag = donationYearVersions.etag(year, authentication.getName(),
+                authentication.getAuthorities().toString(), limit, pageToken, contentType.toString());
+        if (webRequest.checkNotModified(etag)) {
+            return notModified(etag);
+        }
         
+        if (limit != null || pageToken != null) {
+            int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+            if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+                DonationResponse errorResponse = DonationResponse.failure("Invalid limit. Limit must be between 1 and " + MAX_PAGE_SIZE);
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+            }
+
+            DonationResponse response = donationService.getDonationsPageByYear(year, pageSize, pageToken);
+            if (response.isSuccess()) {
+                return ResponseEntity.ok().contentType(contentType).eTag(etag).body(response);
+            } else {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+            }
+        }
+
+        // Cached bodies are JSON only; Smile is written per request
+        if (!smile && closedYearResponseCache.isCacheable(year)) {
+            ClosedYearResponseCache.CachedResponse cached = donationService.getCachedDonationsByYear(year);
+            if (cached != null) {
+                return cachedResponse(cached, acceptEncoding, etag);
+            }
+        }
+
+        // Written to the response as rows are read; a failure mid-stream aborts it unfinished
+        servletResponse.setContentType(contentType.toString());
+        servletResponse.setHeader(HttpHeaders.ETAG, etag);
+        servletResponse.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        JsonFactory factory = smile
+                ? smileHttpMessageConverter.getObjectMapper().getFactory()
+                : objectMapper.getFactory();
+        if (donationService.writeDonationsByYear(year, factory, servletResponse.getOutputStream())) {
+            return null;
+        }
+
         DonationResponse response = donationService.getDonationsByYear(year);
         return ResponseEntity.ok(response);
     }
 
     /**
-     * Get all donations across all years
+     * Write a cached body compressed to clients that accept gzip, uncompressed otherwise
+     */
+    private ResponseEntity<byte[]> cachedResponse(ClosedYearResponseCache.CachedResponse cached,
+                                                  String acceptEncoding, String etag) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        if (cached.gzipped() != null && acceptsGzip(acceptEncoding)) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(cached.gzipped());
+        }
+        return builder.body(cached.json());
+    }
+
+    /**
+     * Whether the Accept-Encoding header allows gzip: named (or as x-gzip)
+     * with a non-zero quality, or left to a non-zero "*". gzip;q=0 refuses it.
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double anyQuality = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase();
+            double quality = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzipQuality = Math.max(gzipQuality != null ? gzipQuality : 0, quality);
+            } else if (coding.equals("*")) {
+                anyQuality = Math.max(anyQuality != null ? anyQuality : 0, quality);
+            }
+        }
+        if (gzipQuality != null) {
+            return gzipQuality > 0;
+        }
+        return anyQuality != null && anyQuality > 0;
+    }
+
+    /**
+     * The format a response to this Accept header is written in. Set on the
+     * response explicitly so that it always matches the format in the ETag
+     */
+    private static MediaType negotiatedType(String accept) {
+        return prefersSmile(accept) ? SMILE : MediaType.APPLICATION_JSON;
+    }
+
+    /**
+     * Whether the Accept header ranks Smile at least as high as JSON.
+     * Wildcards count as JSON, so only clients that name Smile get it
+     */
+    private static boolean prefersSmile(String accept) {
+        if (accept == null || !accept.contains(SMILE.getSubtype())) {
+            return false;
+        }
+        double smileQuality = 0;
+        double jsonQuality = 0;
+        try {
+            for (MediaType type : MediaType.parseMediaTypes(accept)) {
+                if (type.equalsTypeAndSubtype(SMILE)) {
+                    smileQuality = Math.max(smileQuality, type.getQualityValue());
+                } else if (type.includes(MediaType.APPLICATION_JSON)) {
+                    jsonQuality = Math.max(jsonQuality, type.getQualityValue());
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+        return smileQuality > 0 && smileQuality >= jsonQuality;
+    }
+
+    /**
+     * 304 for a conditional GET whose ETag still matches, with the Vary a
+     * full response would carry
+     */
+    private static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+    }
+
+    /**
+     * Get all donations across all years, newest first
+     * Pass limit to get only the most recent donations
      * Available only to ADMIN role
      */
     @GetMapping("/all")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<DonationResponse> getAllDonations() {
-        log.info("Retrieving all donations across all years");
+    public ResponseEntity<DonationResponse> getAllDonations(@RequestParam(required = false) Integer limit) {
+        log.info("Retrieving all donations across all years (limit: {})", limit);
+        
+        if (limit != null && (limit < 1 || limit > MAX_PAGE_SIZE)) {
+            DonationResponse errorResponse = DonationResponse.failure("Invalid limit. Limit must be between 1 and " + MAX_PAGE_SIZE);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        }
         
-        DonationResponse response = donationService.getAllDonations();
+        DonationResponse response = donationService.getAllDonations(limit);
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Stream all donations across all years as rows are read
+     * format=ndjson writes one donation per line, the last line terminated
+     * only once the export is complete; format=json writes a JSON array.
+     * A failure mid-stream aborts the response without ending it
+     * Available only to ADMIN role
+     */
+    @GetMapping("/all/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportAllDonations(
+            @RequestParam(defaultValue = "ndjson") String format) {
+        log.info("Streaming export of all donations as {}", format);
+
+        DonationService.ExportFormat exportFormat;
+        MediaType contentType;
+        if ("ndjson".equalsIgnoreCase(format)) {
+            exportFormat = DonationService.ExportFormat.NDJSON;
+            contentType = MediaType.APPLICATION_NDJSON;
+        } else if ("json".equalsIgnoreCase(format)) {
+            exportFormat = DonationService.ExportFormat.JSON_ARRAY;
+            contentType = MediaType.APPLICATION_JSON;
+        } else {
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingResponseBody body = out -> donationService.exportAllDonations(out, exportFormat);
+        return ResponseEntity.ok().contentType(contentType).body(body);
+    }
+
     /**
      * Update an existing donation
      * Available only to ADMIN role
@@ -124,14 +450,23 @@ public class DonationController {
     /**
      * Get available years with donation data
      * Available to both ADMIN and USER roles
+     * The ETag covers the year list and the negotiated format, so 304 until
+     * a new year table appears
      */
     @GetMapping("/years")
     @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
-    public ResponseEntity<Map<String, Object>> getAvailableYears() {
+    public ResponseEntity<Map<String, Object>> getAvailableYears(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            WebRequest webRequest) {
         log.info("Retrieving available donation years");
         
         try {
             List<Integer> years = donationTableService.getExistingTableYears();
+            MediaType contentType = negotiatedType(accept);
+            String etag = donationYearVersions.contentEtag(years, LocalDate.now().getYear(), contentType.toString());
+            if (webRequest.checkNotModified(etag)) {
+                return notModified(etag);
+            }
             
             Map<String, Object> response = Map.of(
                 "success", true,
@@ -140,7 +475,7 @@ public class DonationController {
                 "currentYear", LocalDate.now().getYear()
             );
             
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().contentType(contentType).eTag(etag).body(response);
             
         } catch (Exception e) {
             log.error("Error retrieving available years: {}", e.getMessage());
@@ -157,12 +492,23 @@ public class DonationController {
     /**
      * Get statistics for a specific year
      * Available to both ADMIN and USER roles
+     * The ETag follows the year's change version and the negotiated format,
+     * so 304 until the year is written
      */
     @GetMapping("/{year}/stats")
     @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
-    public ResponseEntity<Map<String, Object>> getYearStats(@PathVariable int year) {
+    public ResponseEntity<Map<String, Object>> getYearStats(
+            @PathVariable int year,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            WebRequest webRequest) {
         log.info("Retrieving statistics for year: {}", year);
         
+        MediaType contentType = negotiatedType(accept);
+        String etag = donationYearVersions.etag(year, "stats", contentType.toString());
+        if (webRequest.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+
         try {
             DonationTableService.TableStats stats = donationTableService.getTableStats(year);
             
@@ -171,11 +517,12 @@ public class DonationController {
                 "message", "Statistics retrieved successfully",
                 "year", stats.year(),
                 "totalRecords", stats.totalRecords(),
+                "totalAmount", stats.totalAmount(),
                 "firstDonationDate", stats.firstDonationDate(),
                 "lastDonationDate", stats.lastDonationDate()
             );
             
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().contentType(contentType).eTag(etag).body(response);
             
         } catch (Exception e) {
             log.error("Error retrieving statistics for year {}: {}", year, e.getMessage());
@@ -189,6 +536,79 @@ public class DonationController {
         }
     }
 
+    /**
+     * Dashboard aggregates for a year: count and total amount, grouped by any
+     * of groupBy=month,type,collector and filtered by from/to (receipt date),
+     * type and collector. Answered from an in-memory columnar snapshot
+     * Available only to ADMIN role
+     */
+    @GetMapping("/{year}/analytics")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<DonationAnalyticsResponse> getYearAnalytics(
+            @PathVariable int year,
+            @RequestParam(required = false) List<String> groupBy,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String collector) {
+        log.info("Retrieving analytics for year: {} (groupBy: {})", year, groupBy);
+
+        DonationAnalyticsResponse response = donationService.getAnalytics(year, groupBy, from, to, type, collector);
+        if (response.isSuccess()) {
+            return ResponseEntity.ok(response);
+        } else {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        }
+    }
+
+    /**
+     * Recompute the daily statistics rollup from the raw year tables
+     * Rebuilds a single year when given, otherwise every year, and drops
+     * their analytics snapshots so the next query reloads them
+     * Available only to ADMIN role
+     */
+    @PostMapping("/stats/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> rebuildStats(@RequestParam(required = false) Integer year) {
+        log.info("Rebuilding donation statistics rollup for year: {}", year != null ? year : "all");
+        
+        try {
+            List<Integer> years = year != null ? List.of(year) : donationTableService.getExistingTableYears();
+            Map<Integer, Integer> buckets = new LinkedHashMap<>();
+            for (Integer y : years) {
+                buckets.put(y, donationTableService.rebuildRollup(y));
+                // Reload the analytics snapshot from the table as well
+                donationAnalyticsCache.evictYear(y);
+            }
+            
+            Map<String, Object> response = Map.of(
+                "success", true,
+                "message", "Statistics rebuilt successfully",
+                "years", years,
+                "buckets", buckets
+            );
+            
+            return ResponseEntity.ok(response);
+            
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = Map.of(
+                "success", false,
+                "message", e.getMessage()
+            );
+            
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        } catch (Exception e) {
+            log.error("Error rebuilding statistics: {}", e.getMessage());
+            
+            Map<String, Object> errorResponse = Map.of(
+                "success", false,
+                "message", "Failed to rebuild statistics: " + e.getMessage()
+            );
+            
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
+    }
+
     /**
      * Health check endpoint for donation service
      */
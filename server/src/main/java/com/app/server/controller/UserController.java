@@ -1,6 +1,7 @@
 package com.app.server.controller;
 
 import com.app.server.model.User;
+import com.app.server.service.UserProfileCache;
 import com.app.server.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -20,6 +21,7 @@ import java.util.Map;
 public class UserController {
 
     private final UserService userService;
+    private final UserProfileCache userProfileCache;
 
     /**
      * Create a new user
@@ -145,9 +147,16 @@ public class UserController {
      */
     @GetMapping("/health")
     public ResponseEntity<Map<String, Object>> healthCheck() {
+        UserProfileCache.CacheStats profileCache = userProfileCache.stats();
         return ResponseEntity.ok(Map.of(
                 "status", "UP",
-                "service", "User Management Service"
+                "service", "User Management Service",
+                "profileCache", Map.of(
+                        "hits", profileCache.hits(),
+                        "misses", profileCache.misses(),
+                        "invalidations", profileCache.invalidations(),
+                        "size", profileCache.size()
+                )
         ));
     }
 }
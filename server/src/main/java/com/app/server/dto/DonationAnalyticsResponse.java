@@ -0,0 +1,49 @@
+package com.app.server.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DonationAnalyticsResponse {
+
+    private boolean success;
+    private String message;
+    private String year;
+    private List<String> groupBy;
+    private long totalCount;
+    private BigDecimal totalAmount;
+    private List<Group> groups;
+
+    // Static factory methods for different response types
+    public static DonationAnalyticsResponse success(String year, List<String> groupBy, long totalCount,
+                                                    BigDecimal totalAmount, List<Group> groups) {
+        return new DonationAnalyticsResponse(true, "Analytics retrieved successfully", year, groupBy,
+                totalCount, totalAmount, groups);
+    }
+
+    public static DonationAnalyticsResponse failure(String message) {
+        return new DonationAnalyticsResponse(false, message, null, null, 0, null, null);
+    }
+
+    /**
+     * One group; only the dimensions grouped by are present
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Group {
+        private Integer month;
+        private String donationType;
+        private String createdBy;
+        private long count;
+        private BigDecimal totalAmount;
+    }
+}
@@ -0,0 +1,42 @@
+package com.app.server.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DonationBatchRequest {
+
+    @NotEmpty(message = "At least one receipt is required")
+    @Size(max = 1000, message = "A batch must not exceed 1000 receipts")
+    // Items are validated one by one in the service so a bad receipt does not reject the whole batch
+    private List<Item> items;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+
+        // Generated by the client when the receipt is written, reused on every retry
+        @NotBlank(message = "Idempotency key is required")
+        @Size(max = 64, message = "Idempotency key must not exceed 64 characters")
+        private String idempotencyKey;
+
+        // Day the receipt was issued offline; defaults to today
+        private LocalDate receiptDate;
+
+        @NotNull(message = "Donation is required")
+        @Valid
+        private DonationRequest donation;
+    }
+}
@@ -0,0 +1,64 @@
+package com.app.server.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DonationBatchResponse {
+
+    private boolean success;
+    private String message;
+    private List<ItemResult> results;
+    private int created;
+    private int duplicates;
+    private int failed;
+
+    // Static factory methods for different response types
+    public static DonationBatchResponse success(List<ItemResult> results) {
+        int created = (int) results.stream().filter(result -> result.getStatus() == ItemStatus.CREATED).count();
+        int duplicates = (int) results.stream().filter(result -> result.getStatus() == ItemStatus.DUPLICATE).count();
+        int failed = results.size() - created - duplicates;
+        return new DonationBatchResponse(true, "Batch processed", results, created, duplicates, failed);
+    }
+
+    public static DonationBatchResponse failure(String message) {
+        return new DonationBatchResponse(false, message, null, 0, 0, 0);
+    }
+
+    public enum ItemStatus {
+        CREATED,
+        // The idempotency key was already used; id and year point at the original donation
+        DUPLICATE,
+        FAILED
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class ItemResult {
+        private String idempotencyKey;
+        private ItemStatus status;
+        private Long id;
+        private Integer year;
+        private String error;
+
+        public static ItemResult created(String idempotencyKey, long id, int year) {
+            return new ItemResult(idempotencyKey, ItemStatus.CREATED, id, year, null);
+        }
+
+        public static ItemResult duplicate(String idempotencyKey, long id, int year) {
+            return new ItemResult(idempotencyKey, ItemStatus.DUPLICATE, id, year, null);
+        }
+
+        public static ItemResult failed(String idempotencyKey, String error) {
+            return new ItemResult(idempotencyKey, ItemStatus.FAILED, null, null, error);
+        }
+    }
+}
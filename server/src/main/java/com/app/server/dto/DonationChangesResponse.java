@@ -0,0 +1,50 @@
+package com.app.server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DonationChangesResponse {
+
+    private boolean success;
+    private String message;
+    private List<DonationResponse.DonationData> changed;
+    private List<DeletedDonation> deleted;
+    private String nextCursor;
+    // Set when the cursor is older than the tombstone retention window;
+    // the client must discard local data and download everything again
+    private boolean fullResyncRequired;
+    // Set when more changes than fit in one response were pending; the client
+    // applies this page and asks again from nextCursor straight away
+    private boolean hasMore;
+
+    // Static factory methods for different response types
+    public static DonationChangesResponse success(List<DonationResponse.DonationData> changed,
+                                                  List<DeletedDonation> deleted, String nextCursor,
+                                                  boolean hasMore) {
+        return new DonationChangesResponse(true, "Changes retrieved successfully", changed, deleted, nextCursor, false, hasMore);
+    }
+
+    public static DonationChangesResponse fullResync(String nextCursor) {
+        return new DonationChangesResponse(true, "Cursor expired, full resync required", List.of(), List.of(), nextCursor, true, false);
+    }
+
+    public static DonationChangesResponse failure(String message) {
+        return new DonationChangesResponse(false, message, null, null, null, false, false);
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DeletedDonation {
+        private int year;
+        private Long id;
+        private LocalDateTime deletedAt;
+    }
+}
@@ -0,0 +1,44 @@
+package com.app.server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DonationImportResponse {
+
+    private boolean success;
+    private String message;
+    private String importId;
+    // Data rows of the file consumed so far, across resumed runs
+    private long rowsRead;
+    private long imported;
+    private long failed;
+    // Rows skipped at the start of this run because an earlier run committed them
+    private long resumedFrom;
+    private boolean completed;
+    private String errorFile;
+    private long durationMs;
+
+    // Static factory methods for different response types
+    public static DonationImportResponse success(String importId, long rowsRead, long imported, long failed,
+                                                 long resumedFrom, String errorFile, long durationMs) {
+        String message = failed > 0
+                ? "Import completed with " + failed + " rejected rows, see the error file"
+                : "Import completed successfully";
+        return new DonationImportResponse(true, message, importId, rowsRead, imported, failed, resumedFrom,
+                true, errorFile, durationMs);
+    }
+
+    public static DonationImportResponse interrupted(String message, String importId, long rowsRead, long imported,
+                                                     long failed, long resumedFrom, String errorFile, long durationMs) {
+        return new DonationImportResponse(false, message, importId, rowsRead, imported, failed, resumedFrom,
+                false, errorFile, durationMs);
+    }
+
+    public static DonationImportResponse failure(String message) {
+        return new DonationImportResponse(false, message, null, 0, 0, 0, 0, false, null, 0);
+    }
+}
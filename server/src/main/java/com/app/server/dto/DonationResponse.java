@@ -1,6 +1,7 @@
 package com.app.server.dto;
 
 import com.app.server.model.Donation;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -22,21 +23,32 @@ public class DonationResponse {
     private int totalCount;
     private String year;
 
+    // Keyset pagination fields, only present on paged responses
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextPageToken;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean hasMore;
+
     // Static factory methods for different response types
     public static DonationResponse success(String message) {
-        return new DonationResponse(true, message, null, null, 0, null);
+        return new DonationResponse(true, message, null, null, 0, null, null, null);
     }
 
     public static DonationResponse success(String message, DonationData data) {
-        return new DonationResponse(true, message, data, null, 0, null);
+        return new DonationResponse(true, message, data, null, 0, null, null, null);
     }
 
     public static DonationResponse success(String message, List<DonationData> donations, int totalCount, String year) {
-        return new DonationResponse(true, message, null, donations, totalCount, year);
+        return new DonationResponse(true, message, null, donations, totalCount, year, null, null);
+    }
+
+    public static DonationResponse page(String message, List<DonationData> donations, String year, String nextPageToken) {
+        return new DonationResponse(true, message, null, donations, donations.size(), year,
+                nextPageToken, nextPageToken != null);
     }
 
     public static DonationResponse failure(String message) {
-        return new DonationResponse(false, message, null, null, 0, null);
+        return new DonationResponse(false, message, null, null, 0, null, null, null);
     }
 
     @Data
@@ -0,0 +1,12 @@
+package com.app.server.exception;
+
+/**
+ * Thrown when the write-behind ingestion buffer stays full; mapped to 503 so
+ * clients back off and retry.
+ */
+public class IngestionBusyException extends RuntimeException {
+
+    public IngestionBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,33 @@
+package com.app.server.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Delta-sync position: every change strictly before the watermark has been
+ * delivered. Independent of year tables, so it stays valid across year
+ * boundaries. Handed to clients as an opaque token.
+ */
+public record DonationChangeCursor(LocalDateTime watermark) {
+
+    /**
+     * Encode cursor as an opaque URL-safe token
+     */
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(watermark.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a token produced by {@link #encode()}
+     */
+    public static DonationChangeCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            return new DonationChangeCursor(LocalDateTime.parse(raw));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid sync cursor", e);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.app.server.repository;
+
+import com.app.server.model.Donation;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Keyset position in a year table, ordered by (created_date, created_at, id) descending.
+ * Handed to clients as an opaque page token.
+ */
+public record DonationCursor(LocalDate createdDate, LocalDateTime createdAt, long id) {
+
+    private static final String SEPARATOR = "|";
+
+    /**
+     * Build the cursor pointing just after the given donation
+     */
+    public static DonationCursor after(Donation donation) {
+        return new DonationCursor(donation.getCreatedDate(), donation.getCreatedAt(), donation.getId());
+    }
+
+    /**
+     * Encode cursor as an opaque URL-safe token
+     */
+    public String encode() {
+        String raw = createdDate + SEPARATOR + createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a token produced by {@link #encode()}
+     */
+    public static DonationCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR);
+            return new DonationCursor(LocalDate.parse(parts[0]), LocalDateTime.parse(parts[1]), Long.parseLong(parts[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid page token", e);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.app.server.repository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Client-generated idempotency keys of uploaded receipts, mapped to the
+ * donation each one created. Bounded by purging keys past the retention window.
+ */
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class DonationIdempotencyRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Create the idempotency key table if it does not exist yet
+     */
+    @PostConstruct
+    public void createTableIfNotExists() {
+        jdbcTemplate.execute("""
+            CREATE TABLE IF NOT EXISTS donation_idempotency_keys (
+                created_by VARCHAR(100) NOT NULL,
+                idempotency_key VARCHAR(64) NOT NULL,
+                donation_year INT NOT NULL,
+                donation_id BIGINT NOT NULL,
+                created_at TIMESTAMP NOT NULL,
+                PRIMARY KEY (created_by, idempotency_key)
+            )
+            """);
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_donation_idempotency_created_at ON donation_idempotency_keys (created_at)");
+    }
+
+    /**
+     * Look up which of the given keys a user has already used
+     */
+    public Map<String, StoredKey> findExisting(String createdBy, Collection<String> keys) {
+        Map<String, StoredKey> existing = new HashMap<>();
+        if (keys.isEmpty()) {
+            return existing;
+        }
+
+        String placeholders = String.join(", ", keys.stream().map(key -> "?").toList());
+        Object[] params = new Object[keys.size() + 1];
+        params[0] = createdBy;
+        int i = 1;
+        for (String key : keys) {
+            params[i++] = key;
+        }
+
+        jdbcTemplate.query("""
+            SELECT idempotency_key, donation_year, donation_id FROM donation_idempotency_keys
+            WHERE created_by = ? AND idempotency_key IN (%s)
+            """.formatted(placeholders), rs -> {
+            existing.put(rs.getString("idempotency_key"),
+                    new StoredKey(rs.getInt("donation_year"), rs.getLong("donation_id")));
+        }, params);
+        return existing;
+    }
+
+    /**
+     * Record keys for newly created donations.
+     * Must run in the same transaction as the inserts; a key already present
+     * fails the batch with a DuplicateKeyException.
+     */
+    public void saveAll(String createdBy, Map<String, StoredKey> keys) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = keys.entrySet().stream()
+                .map(entry -> new Object[]{createdBy, entry.getKey(), entry.getValue().year(), entry.getValue().id(), now})
+                .toList();
+        jdbcTemplate.batchUpdate("""
+            INSERT INTO donation_idempotency_keys (created_by, idempotency_key, donation_year, donation_id, created_at)
+            VALUES (?, ?, ?, ?, ?)
+            """, rows);
+    }
+
+    /**
+     * Remove keys older than the given instant
+     */
+    public int purgeOlderThan(LocalDateTime cutoff) {
+        int purged = jdbcTemplate.update("DELETE FROM donation_idempotency_keys WHERE created_at < ?", Timestamp.valueOf(cutoff));
+        log.info("Purged {} donation idempotency keys older than {}", purged, cutoff);
+        return purged;
+    }
+
+    /**
+     * The donation an idempotency key created
+     */
+    public record StoredKey(int year, long id) {}
+}
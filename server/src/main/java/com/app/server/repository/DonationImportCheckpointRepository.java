@@ -0,0 +1,100 @@
+package com.app.server.repository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Progress of CSV imports, one row per import ID. Advanced in the same
+ * transaction as each chunk's inserts, so a resumed import skips exactly the
+ * rows that were committed.
+ */
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class DonationImportCheckpointRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Create the checkpoint table if it does not exist yet
+     */
+    @PostConstruct
+    public void createTableIfNotExists() {
+        jdbcTemplate.execute("""
+            CREATE TABLE IF NOT EXISTS donation_import_checkpoints (
+                import_id VARCHAR(64) PRIMARY KEY,
+                rows_read BIGINT NOT NULL,
+                imported BIGINT NOT NULL,
+                failed BIGINT NOT NULL,
+                completed BOOLEAN NOT NULL,
+                started_by VARCHAR(100) NOT NULL,
+                updated_at TIMESTAMP NOT NULL
+            )
+            """);
+    }
+
+    /**
+     * Get the checkpoint of an import, creating an empty one for a new import ID
+     */
+    public Checkpoint start(String importId, String startedBy) {
+        Optional<Checkpoint> existing = find(importId);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+        try {
+            jdbcTemplate.update("""
+                INSERT INTO donation_import_checkpoints
+                    (import_id, rows_read, imported, failed, completed, started_by, updated_at)
+                VALUES (?, 0, 0, 0, FALSE, ?, ?)
+                """, importId, startedBy, Timestamp.valueOf(LocalDateTime.now()));
+        } catch (DuplicateKeyException e) {
+            // Started concurrently on another node
+            return find(importId).orElseThrow();
+        }
+        return new Checkpoint(importId, 0, 0, 0, false);
+    }
+
+    public Optional<Checkpoint> find(String importId) {
+        List<Checkpoint> checkpoints = jdbcTemplate.query("""
+            SELECT import_id, rows_read, imported, failed, completed
+            FROM donation_import_checkpoints WHERE import_id = ?
+            """, (rs, rowNum) -> new Checkpoint(rs.getString("import_id"), rs.getLong("rows_read"),
+                rs.getLong("imported"), rs.getLong("failed"), rs.getBoolean("completed")), importId);
+        return checkpoints.stream().findFirst();
+    }
+
+    /**
+     * Add one committed chunk to the checkpoint.
+     * Must run in the same transaction as the chunk's inserts.
+     */
+    public void advance(String importId, long rowsRead, long imported, long failed) {
+        jdbcTemplate.update("""
+            UPDATE donation_import_checkpoints
+            SET rows_read = rows_read + ?, imported = imported + ?, failed = failed + ?, updated_at = ?
+            WHERE import_id = ?
+            """, rowsRead, imported, failed, Timestamp.valueOf(LocalDateTime.now()), importId);
+    }
+
+    /**
+     * Mark an import as having reached the end of its file
+     */
+    public void complete(String importId) {
+        jdbcTemplate.update("UPDATE donation_import_checkpoints SET completed = TRUE, updated_at = ? WHERE import_id = ?",
+                Timestamp.valueOf(LocalDateTime.now()), importId);
+    }
+
+    /**
+     * Progress of one import: data rows consumed from the file, and how many
+     * of them were inserted or rejected
+     */
+    public record Checkpoint(String importId, long rowsRead, long imported, long failed, boolean completed) {}
+}
@@ -3,50 +3,56 @@ package com.app.server.repository;
 import com.app.server.model.Donation;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Repository
 @RequiredArgsConstructor
 @Slf4j
 public class DonationRepository {
 
+    // Rows per multi-row INSERT; 8 parameters each keeps statements well under driver limits
+    private static final int MULTI_ROW_CHUNK = 100;
+
+    /**
+     * Column order of streamRowsByYear result sets, read by position
+     */
+    public static final String ROW_COLUMNS = "id, donor_name, donor_address, donor_phone, donation_amount, "
+            + "donation_type, notes, created_at, created_date, created_by, updated_at, updated_by";
+
     private final JdbcTemplate jdbcTemplate;
+    private final DonationRollupRepository donationRollupRepository;
+    private final DonationTombstoneRepository donationTombstoneRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final DonationYearVersions donationYearVersions;
+    private final List<DonationWriteListener> donationWriteListeners;
 
-    private final RowMapper<Donation> donationRowMapper = (rs, rowNum) -> {
-        Donation donation = new Donation();
-        donation.setId(rs.getLong("id"));
-        donation.setDonorName(rs.getString("donor_name"));
-        donation.setDonorAddress(rs.getString("donor_address"));
-        donation.setDonorPhone(rs.getString("donor_phone"));
-        donation.setDonationAmount(rs.getBigDecimal("donation_amount"));
-        donation.setDonationType(rs.getString("donation_type"));
-        donation.setNotes(rs.getString("notes"));
-        donation.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
-        donation.setCreatedDate(rs.getDate("created_date").toLocalDate());
-        donation.setCreatedBy(rs.getString("created_by"));
-        
-        if (rs.getTimestamp("updated_at") != null) {
-            donation.setUpdatedAt(rs.getTimestamp("updated_at").toLocalDateTime());
-        }
-        if (rs.getString("updated_by") != null) {
-            donation.setUpdatedBy(rs.getString("updated_by"));
-        }
-        
-        return donation;
-    };
+    private final RowMapper<Donation> donationRowMapper = new DonationRowMapper();
 
     /**
      * Save a new donation to the appropriate year table
@@ -63,39 +69,44 @@ public class DonationRepository {
         KeyHolder keyHolder = new GeneratedKeyHolder();
         
         try {
-            jdbcTemplate.update(connection -> {
-                PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-                ps.setString(1, donation.getDonorName());
-                ps.setString(2, donation.getDonorAddress());
-                ps.setString(3, donation.getDonorPhone());
-                ps.setBigDecimal(4, donation.getDonationAmount());
-                ps.setString(5, donation.getDonationType());
-                ps.setString(6, donation.getNotes());
-                ps.setDate(7, java.sql.Date.valueOf(donation.getCreatedDate()));
-                ps.setString(8, donation.getCreatedBy());
-                return ps;
-            }, keyHolder);
+            // Insert the row and its rollup bucket together
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update(connection -> {
+                    PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+                    ps.setString(1, donation.getDonorName());
+                    ps.setString(2, donation.getDonorAddress());
+                    ps.setString(3, donation.getDonorPhone());
+                    ps.setBigDecimal(4, donation.getDonationAmount());
+                    ps.setString(5, donation.getDonationType());
+                    ps.setString(6, donation.getNotes());
+                    ps.setDate(7, java.sql.Date.valueOf(donation.getCreatedDate()));
+                    ps.setString(8, donation.getCreatedBy());
+                    return ps;
+                }, keyHolder);
 
-            // Get the generated ID from the key holder
-            Long generatedId = null;
-            try {
-                Number generatedKey = keyHolder.getKey();
-                if (generatedKey != null) {
-                    generatedId = generatedKey.longValue();
-                    donation.setId(generatedId);
-                }
-            } catch (Exception e) {
-                // Fallback: try to get ID from keys map
-                Map<String, Object> keys = keyHolder.getKeys();
-                if (keys != null && keys.containsKey("ID")) {
-                    generatedId = ((Number) keys.get("ID")).longValue();
-                    donation.setId(generatedId);
-                } else {
-                    throw new RuntimeException("Failed to retrieve generated ID");
+                donationRollupRepository.applyDelta(year, donation.getCreatedDate(), donation.getDonationType(),
+                        donation.getCreatedBy(), 1, donation.getDonationAmount());
+                donationYearVersions.bump(year);
+
+                // Get the generated ID from the key holder, before the commit reports the row
+                try {
+                    Number generatedKey = keyHolder.getKey();
+                    if (generatedKey != null) {
+                        donation.setId(generatedKey.longValue());
+                    }
+                } catch (Exception e) {
+                    // Fallback: try to get ID from keys map
+                    Map<String, Object> keys = keyHolder.getKeys();
+                    if (keys != null && keys.containsKey("ID")) {
+                        donation.setId(((Number) keys.get("ID")).longValue());
+                    } else {
+                        throw new RuntimeException("Failed to retrieve generated ID");
+                    }
                 }
-            }
+                notifySaved(year, List.of(donation));
+            });
 
-            log.info("Successfully saved donation with ID {} to table {}", generatedId, tableName);
+            log.info("Successfully saved donation with ID {} to table {}", donation.getId(), tableName);
             return donation;
             
         } catch (Exception e) {
@@ -104,6 +115,125 @@ public class DonationRepository {
         }
     }
 
+    /**
+     * Insert many donations into one year table with a single JDBC batch and
+     * apply their rollup deltas, one update per touched bucket.
+     * Must run inside the caller's transaction; generated IDs are set on the donations.
+     */
+    public List<Donation> saveBatch(List<Donation> donations, int year) {
+        String tableName = "donations_" + year;
+
+        String sql = """
+            INSERT INTO %s (donor_name, donor_address, donor_phone, donation_amount,
+                           donation_type, notes, created_date, created_by)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            """.formatted(tableName);
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(sql, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Donation donation = donations.get(i);
+                        ps.setString(1, donation.getDonorName());
+                        ps.setString(2, donation.getDonorAddress());
+                        ps.setString(3, donation.getDonorPhone());
+                        ps.setBigDecimal(4, donation.getDonationAmount());
+                        ps.setString(5, donation.getDonationType());
+                        ps.setString(6, donation.getNotes());
+                        ps.setDate(7, java.sql.Date.valueOf(donation.getCreatedDate()));
+                        ps.setString(8, donation.getCreatedBy());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return donations.size();
+                    }
+                }, keyHolder);
+
+        assignGeneratedIds(donations, keyHolder, tableName);
+        applyRollupDeltas(donations, year);
+        donationYearVersions.bump(year);
+        notifySaved(year, donations);
+
+        log.info("Batch inserted {} donations into table {}", donations.size(), tableName);
+        return donations;
+    }
+
+    /**
+     * Insert many donations into one year table with multi-row INSERT
+     * statements of up to MULTI_ROW_CHUNK rows each, so a group costs a few
+     * round-trips regardless of driver batch rewriting, and apply their rollup deltas.
+     * Must run inside the caller's transaction; generated IDs are set on the donations.
+     */
+    public List<Donation> saveMultiRow(List<Donation> donations, int year) {
+        String tableName = "donations_" + year;
+
+        for (int from = 0; from < donations.size(); from += MULTI_ROW_CHUNK) {
+            List<Donation> chunk = donations.subList(from, Math.min(from + MULTI_ROW_CHUNK, donations.size()));
+            String sql = """
+                INSERT INTO %s (donor_name, donor_address, donor_phone, donation_amount,
+                               donation_type, notes, created_date, created_by)
+                VALUES %s
+                """.formatted(tableName, String.join(", ", Collections.nCopies(chunk.size(), "(?, ?, ?, ?, ?, ?, ?, ?)")));
+
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+            jdbcTemplate.update(connection -> {
+                PreparedStatement ps = connection.prepareStatement(sql, new String[]{"id"});
+                int index = 1;
+                for (Donation donation : chunk) {
+                    ps.setString(index++, donation.getDonorName());
+                    ps.setString(index++, donation.getDonorAddress());
+                    ps.setString(index++, donation.getDonorPhone());
+                    ps.setBigDecimal(index++, donation.getDonationAmount());
+                    ps.setString(index++, donation.getDonationType());
+                    ps.setString(index++, donation.getNotes());
+                    ps.setDate(index++, java.sql.Date.valueOf(donation.getCreatedDate()));
+                    ps.setString(index++, donation.getCreatedBy());
+                }
+                return ps;
+            }, keyHolder);
+            assignGeneratedIds(chunk, keyHolder, tableName);
+        }
+        applyRollupDeltas(donations, year);
+        donationYearVersions.bump(year);
+        notifySaved(year, donations);
+
+        log.debug("Multi-row inserted {} donations into table {}", donations.size(), tableName);
+        return donations;
+    }
+
+    private void assignGeneratedIds(List<Donation> donations, KeyHolder keyHolder, String tableName) {
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != donations.size()) {
+            throw new IllegalStateException("Expected " + donations.size() + " generated IDs from table "
+                    + tableName + " but got " + keys.size());
+        }
+        for (int i = 0; i < donations.size(); i++) {
+            donations.get(i).setId(((Number) keys.get(i).values().iterator().next()).longValue());
+        }
+    }
+
+    /**
+     * Sum new donations per rollup bucket so a busy day costs one update, not one per row
+     */
+    private void applyRollupDeltas(List<Donation> donations, int year) {
+        Map<RollupKey, BigDecimal> amounts = new LinkedHashMap<>();
+        Map<RollupKey, Long> counts = new HashMap<>();
+        for (Donation donation : donations) {
+            RollupKey bucket = new RollupKey(donation.getCreatedDate(), donation.getDonationType(),
+                    donation.getCreatedBy(), null);
+            amounts.merge(bucket, donation.getDonationAmount(), BigDecimal::add);
+            counts.merge(bucket, 1L, Long::sum);
+        }
+        amounts.forEach((bucket, amount) -> donationRollupRepository.applyDelta(year, bucket.createdDate(),
+                bucket.donationType(), bucket.createdBy(), counts.get(bucket), amount));
+    }
+
+    private void notifySaved(int year, List<Donation> donations) {
+        donationWriteListeners.forEach(listener -> listener.donationsSaved(year, donations));
+    }
+
     /**
      * Find donation by ID and year
      */
@@ -125,7 +255,7 @@ public class DonationRepository {
      */
     public List<Donation> findAllByYear(int year) {
         String tableName = "donations_" + year;
-        String sql = "SELECT * FROM " + tableName + " ORDER BY created_date DESC, created_at DESC";
+        String sql = "SELECT * FROM " + tableName + " ORDER BY created_date DESC, created_at DESC, id DESC";
         
         try {
             return jdbcTemplate.query(sql, donationRowMapper);
@@ -135,6 +265,66 @@ public class DonationRepository {
         }
     }
 
+    /**
+     * Stream all donations for a specific year to a consumer, one row at a time.
+     * Rows are fetched from the driver in batches of fetchSize so the full year
+     * is never held in memory. Errors are rethrown so a broken export stops.
+     */
+    public void streamAllByYear(int year, int fetchSize, Consumer<Donation> consumer) {
+        String tableName = "donations_" + year;
+        String sql = "SELECT * FROM " + tableName + " ORDER BY created_date DESC, created_at DESC, id DESC";
+
+        try {
+            jdbcTemplate.query(connection -> streamingStatement(connection, sql, fetchSize),
+                    (RowCallbackHandler) rs -> consumer.accept(donationRowMapper.mapRow(rs, rs.getRow())));
+        } catch (RuntimeException e) {
+            log.error("Error streaming donations for year {}: {}", year, e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * A forward-only statement whose rows are fetched fetchSize at a time.
+     * MySQL Connector/J ignores the fetch size and buffers the whole result
+     * unless the URL sets useCursorFetch=true; without it the statement asks
+     * for row-by-row streaming (fetch size Integer.MIN_VALUE) instead.
+     */
+    private static PreparedStatement streamingStatement(Connection connection, String sql, int fetchSize)
+            throws SQLException {
+        PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        DatabaseMetaData metaData = connection.getMetaData();
+        boolean mysqlWithoutCursor = metaData.getDatabaseProductName().toLowerCase().contains("mysql")
+                && !metaData.getURL().contains("useCursorFetch=true");
+        ps.setFetchSize(mysqlWithoutCursor ? Integer.MIN_VALUE : fetchSize);
+        return ps;
+    }
+
+    /**
+     * Stream a year's donations, newest first, straight to a row handler
+     * without mapping them to Donation objects, fetching fetchSize rows at a
+     * time. Columns are in ROW_COLUMNS order; pass a null createdBy for all
+     * donations. Errors are rethrown.
+     */
+    public void streamRowsByYear(int year, String createdBy, int fetchSize, RowCallbackHandler handler) {
+        String tableName = "donations_" + year;
+        String sql = "SELECT " + ROW_COLUMNS + " FROM " + tableName
+                + (createdBy != null ? " WHERE created_by = ?" : "")
+                + " ORDER BY created_date DESC, created_at DESC, id DESC";
+
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement ps = streamingStatement(connection, sql, fetchSize);
+                if (createdBy != null) {
+                    ps.setString(1, createdBy);
+                }
+                return ps;
+            }, handler);
+        } catch (RuntimeException e) {
+            log.error("Error streaming donation rows for year {}: {}", year, e.getMessage());
+            throw e;
+        }
+    }
+
     /**
      * Find donations by creator for a specific year (for USER role)
      */
@@ -150,6 +340,129 @@ public class DonationRepository {
         }
     }
 
+    /**
+     * Find donations in one year table whose created_date falls in [from, to],
+     * newest first. The range predicate uses the created_date index; pass a
+     * null createdBy for all donations and a null limit for no limit.
+     */
+    public List<Donation> findByYearAndDateRange(int year, LocalDate from, LocalDate to, String createdBy, Integer limit) {
+        String tableName = "donations_" + year;
+        StringBuilder sql = new StringBuilder("SELECT * FROM ").append(tableName)
+                .append(" WHERE created_date BETWEEN ? AND ?");
+        List<Object> params = new ArrayList<>();
+        params.add(java.sql.Date.valueOf(from));
+        params.add(java.sql.Date.valueOf(to));
+
+        if (createdBy != null) {
+            sql.append(" AND created_by = ?");
+            params.add(createdBy);
+        }
+        sql.append(" ORDER BY created_date DESC, created_at DESC, id DESC");
+        if (limit != null) {
+            sql.append(" LIMIT ?");
+            params.add(limit);
+        }
+
+        try {
+            return jdbcTemplate.query(sql.toString(), donationRowMapper, params.toArray());
+        } catch (Exception e) {
+            log.error("Error finding donations between {} and {} in table {}: {}", from, to, tableName, e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Current time on the database clock, which stamps created_at, updated_at
+     * and deletion tombstones. Delta sync watermarks are taken from it too, so
+     * the JVM clock of whichever instance serves a request never matters.
+     */
+    public LocalDateTime databaseNow() {
+        return jdbcTemplate.queryForObject("SELECT CURRENT_TIMESTAMP", Timestamp.class).toLocalDateTime();
+    }
+
+    /**
+     * Find up to limit donations in one year table created or updated in
+     * [from, to), in order of changeTime, optionally limited to one creator.
+     * Used by delta sync.
+     */
+    public List<Donation> findChangedBetween(int year, LocalDateTime from, LocalDateTime to, String createdBy, int limit) {
+        String tableName = "donations_" + year;
+        StringBuilder sql = new StringBuilder("SELECT * FROM ").append(tableName).append("""
+             WHERE ((created_at >= ? AND created_at < ?) OR (updated_at >= ? AND updated_at < ?))
+            """);
+        List<Object> params = new ArrayList<>();
+        Timestamp fromTs = Timestamp.valueOf(from);
+        Timestamp toTs = Timestamp.valueOf(to);
+        params.add(fromTs);
+        params.add(toTs);
+        params.add(fromTs);
+        params.add(toTs);
+
+        if (createdBy != null) {
+            sql.append(" AND created_by = ?");
+            params.add(createdBy);
+        }
+        sql.append(" ORDER BY CASE WHEN updated_at >= ? AND updated_at < ? THEN updated_at ELSE created_at END, id LIMIT ?");
+        params.add(fromTs);
+        params.add(toTs);
+        params.add(limit);
+
+        try {
+            return jdbcTemplate.query(sql.toString(), donationRowMapper, params.toArray());
+        } catch (Exception e) {
+            log.error("Error finding changed donations in table {}: {}", tableName, e.getMessage());
+            throw new RuntimeException("Failed to find changed donations for year " + year, e);
+        }
+    }
+
+    /**
+     * When a donation returned by findChangedBetween changed within [from, to):
+     * its edit if that falls in the window, otherwise its creation
+     */
+    public static LocalDateTime changeTime(Donation donation, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime updatedAt = donation.getUpdatedAt();
+        boolean updatedInWindow = updatedAt != null && !updatedAt.isBefore(from) && updatedAt.isBefore(to);
+        return updatedInWindow ? updatedAt : donation.getCreatedAt();
+    }
+
+    /**
+     * Find one page of donations for a year using keyset pagination on
+     * (created_date, created_at, id). Pass a null createdBy for all donations
+     * and a null cursor for the first page.
+     */
+    public List<Donation> findPageByYear(int year, String createdBy, DonationCursor after, int limit) {
+        String tableName = "donations_" + year;
+        StringBuilder sql = new StringBuilder("SELECT * FROM ").append(tableName).append(" WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+
+        if (createdBy != null) {
+            sql.append(" AND created_by = ?");
+            params.add(createdBy);
+        }
+        if (after != null) {
+            sql.append("""
+                 AND (created_date < ?
+                      OR (created_date = ? AND (created_at < ? OR (created_at = ? AND id < ?))))
+                """);
+            java.sql.Date createdDate = java.sql.Date.valueOf(after.createdDate());
+            Timestamp createdAt = Timestamp.valueOf(after.createdAt());
+            params.add(createdDate);
+            params.add(createdDate);
+            params.add(createdAt);
+            params.add(createdAt);
+            params.add(after.id());
+        }
+        sql.append(" ORDER BY created_date DESC, created_at DESC, id DESC LIMIT ?");
+        params.add(limit);
+
+        try {
+            return jdbcTemplate.query(sql.toString(), donationRowMapper, params.toArray());
+        } catch (Exception e) {
+            log.error("Error finding donation page for year {}: {}", year, e.getMessage());
+            return List.of();
+        }
+    }
+
     /**
      * Update an existing donation
      */
@@ -160,22 +473,41 @@ public class DonationRepository {
             UPDATE %s SET 
                 donor_name = ?, donor_address = ?, donor_phone = ?, 
                 donation_amount = ?, donation_type = ?, notes = ?,
-                updated_at = ?, updated_by = ?
+                updated_at = CURRENT_TIMESTAMP, updated_by = ?
             WHERE id = ?
             """.formatted(tableName);
 
         try {
-            int rowsAffected = jdbcTemplate.update(sql,
-                donation.getDonorName(),
-                donation.getDonorAddress(),
-                donation.getDonorPhone(),
-                donation.getDonationAmount(),
-                donation.getDonationType(),
-                donation.getNotes(),
-                LocalDateTime.now(),
-                updatedBy,
-                donation.getId()
-            );
+            // Update the row and move its amount between rollup buckets together
+            Integer updated = transactionTemplate.execute(status -> {
+                Optional<RollupKey> previous = findRollupKeyForUpdate(tableName, donation.getId());
+                if (previous.isEmpty()) {
+                    return 0;
+                }
+
+                int rows = jdbcTemplate.update(sql,
+                    donation.getDonorName(),
+                    donation.getDonorAddress(),
+                    donation.getDonorPhone(),
+                    donation.getDonationAmount(),
+                    donation.getDonationType(),
+                    donation.getNotes(),
+                    updatedBy,
+                    donation.getId()
+                );
+
+                RollupKey old = previous.get();
+                donationRollupRepository.applyDelta(year, old.createdDate(), old.donationType(), old.createdBy(),
+                        -1, old.donationAmount().negate());
+                donationRollupRepository.applyDelta(year, old.createdDate(), donation.getDonationType(), old.createdBy(),
+                        1, donation.getDonationAmount());
+                donationYearVersions.bump(year);
+                donationWriteListeners.forEach(listener -> listener.donationUpdated(year, donation.getId(),
+                        old.createdDate(), old.createdBy(), old.donationAmount(), old.donationType(),
+                        donation.getDonationAmount(), donation.getDonationType()));
+                return rows;
+            });
+            int rowsAffected = updated != null ? updated : 0;
             
             boolean success = rowsAffected > 0;
             log.info("Update donation ID {} in table {}: {}", donation.getId(), tableName, 
@@ -189,14 +521,31 @@ public class DonationRepository {
     }
 
     /**
-     * Delete a donation by ID and year
+     * Delete a donation by ID and year, leaving a tombstone for delta sync
      */
-    public boolean deleteByIdAndYear(Long id, int year) {
+    public boolean deleteByIdAndYear(Long id, int year, String deletedBy) {
         String tableName = "donations_" + year;
         String sql = "DELETE FROM " + tableName + " WHERE id = ?";
         
         try {
-            int rowsAffected = jdbcTemplate.update(sql, id);
+            // Delete the row and take it out of its rollup bucket together
+            Integer deleted = transactionTemplate.execute(status -> {
+                Optional<RollupKey> previous = findRollupKeyForUpdate(tableName, id);
+                if (previous.isEmpty()) {
+                    return 0;
+                }
+
+                int rows = jdbcTemplate.update(sql, id);
+
+                RollupKey old = previous.get();
+                donationRollupRepository.applyDelta(year, old.createdDate(), old.donationType(), old.createdBy(),
+                        -1, old.donationAmount().negate());
+                donationTombstoneRepository.save(year, id, old.createdBy(), deletedBy);
+                donationYearVersions.bump(year);
+                donationWriteListeners.forEach(listener -> listener.donationDeleted(year, id));
+                return rows;
+            });
+            int rowsAffected = deleted != null ? deleted : 0;
             boolean success = rowsAffected > 0;
             log.info("Delete donation ID {} from table {}: {}", id, tableName, 
                     success ? "SUCCESS" : "NO_ROWS_AFFECTED");
@@ -212,11 +561,8 @@ public class DonationRepository {
      * Get total donation amount for a specific year
      */
     public BigDecimal getTotalAmountByYear(int year) {
-        String tableName = "donations_" + year;
-        String sql = "SELECT COALESCE(SUM(donation_amount), 0) FROM " + tableName;
-        
         try {
-            return jdbcTemplate.queryForObject(sql, BigDecimal.class);
+            return donationRollupRepository.getTotalAmountByYear(year);
         } catch (Exception e) {
             log.error("Error getting total amount for year {}: {}", year, e.getMessage());
             return BigDecimal.ZERO;
@@ -227,15 +573,27 @@ public class DonationRepository {
      * Get donation count for a specific year
      */
     public int getCountByYear(int year) {
-        String tableName = "donations_" + year;
-        String sql = "SELECT COUNT(*) FROM " + tableName;
-        
         try {
-            Integer count = jdbcTemplate.queryForObject(sql, Integer.class);
-            return count != null ? count : 0;
+            return (int) donationRollupRepository.getYearSummary(year).totalRecords();
         } catch (Exception e) {
             log.error("Error getting count for year {}: {}", year, e.getMessage());
             return 0;
         }
     }
+
+    /**
+     * Lock a donation row and read the columns that place it in the rollup
+     */
+    private Optional<RollupKey> findRollupKeyForUpdate(String tableName, Long id) {
+        String sql = "SELECT created_date, donation_type, created_by, donation_amount FROM "
+                + tableName + " WHERE id = ? FOR UPDATE";
+        List<RollupKey> keys = jdbcTemplate.query(sql, (rs, rowNum) -> new RollupKey(
+                rs.getDate("created_date").toLocalDate(),
+                rs.getString("donation_type"),
+                rs.getString("created_by"),
+                rs.getBigDecimal("donation_amount")), id);
+        return keys.stream().findFirst();
+    }
+
+    private record RollupKey(LocalDate createdDate, String donationType, String createdBy, BigDecimal donationAmount) {}
 }
@@ -0,0 +1,135 @@
+package com.app.server.repository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Per-day aggregate rollup of the donations_<year> tables, keyed by
+ * (year, day, donation_type, created_by). Kept in step with every write so
+ * totals and statistics cost O(days) instead of a full table scan.
+ */
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class DonationRollupRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Create the rollup table if it does not exist yet
+     */
+    @PostConstruct
+    public void createTableIfNotExists() {
+        jdbcTemplate.execute("""
+            CREATE TABLE IF NOT EXISTS donation_daily_rollup (
+                rollup_year INT NOT NULL,
+                rollup_date DATE NOT NULL,
+                donation_type VARCHAR(50) NOT NULL,
+                created_by VARCHAR(100) NOT NULL,
+                donation_count BIGINT NOT NULL,
+                total_amount DECIMAL(15,2) NOT NULL,
+                PRIMARY KEY (rollup_year, rollup_date, donation_type, created_by)
+            )
+            """);
+    }
+
+    /**
+     * Add count and amount deltas to a rollup bucket, creating it when missing.
+     * Must run in the same transaction as the donation write it reflects.
+     */
+    public void applyDelta(int year, LocalDate day, String donationType, String createdBy,
+                           long countDelta, BigDecimal amountDelta) {
+        String type = donationType != null ? donationType : "";
+        String updateSql = """
+            UPDATE donation_daily_rollup
+            SET donation_count = donation_count + ?, total_amount = total_amount + ?
+            WHERE rollup_year = ? AND rollup_date = ? AND donation_type = ? AND created_by = ?
+            """;
+        Object[] updateArgs = {countDelta, amountDelta, year, java.sql.Date.valueOf(day), type, createdBy};
+
+        if (jdbcTemplate.update(updateSql, updateArgs) > 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.update("""
+                INSERT INTO donation_daily_rollup
+                    (rollup_year, rollup_date, donation_type, created_by, donation_count, total_amount)
+                VALUES (?, ?, ?, ?, ?, ?)
+                """, year, java.sql.Date.valueOf(day), type, createdBy, countDelta, amountDelta);
+        } catch (DuplicateKeyException e) {
+            // Another writer created the bucket first
+            jdbcTemplate.update(updateSql, updateArgs);
+        }
+    }
+
+    /**
+     * Get total donation amount for a year from the rollup
+     */
+    public BigDecimal getTotalAmountByYear(int year) {
+        BigDecimal total = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(total_amount), 0) FROM donation_daily_rollup WHERE rollup_year = ?",
+                BigDecimal.class, year);
+        return total != null ? total : BigDecimal.ZERO;
+    }
+
+    /**
+     * Get count, total amount and first/last donation day for a year in one query
+     */
+    public YearSummary getYearSummary(int year) {
+        return jdbcTemplate.queryForObject("""
+            SELECT COALESCE(SUM(donation_count), 0) AS donation_count,
+                   COALESCE(SUM(total_amount), 0) AS total_amount,
+                   MIN(rollup_date) AS first_date,
+                   MAX(rollup_date) AS last_date
+            FROM donation_daily_rollup
+            WHERE rollup_year = ? AND donation_count > 0
+            """, (rs, rowNum) -> new YearSummary(
+                rs.getLong("donation_count"),
+                rs.getBigDecimal("total_amount"),
+                rs.getDate("first_date") != null ? rs.getDate("first_date").toLocalDate() : null,
+                rs.getDate("last_date") != null ? rs.getDate("last_date").toLocalDate() : null
+            ), year);
+    }
+
+    /**
+     * Check whether any rollup rows exist for a year
+     */
+    public boolean hasRollupForYear(int year) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM donation_daily_rollup WHERE rollup_year = ?", Integer.class, year);
+        return count != null && count > 0;
+    }
+
+    /**
+     * Recompute the rollup for a year from the raw year table.
+     * Must run inside a transaction so readers never see a half-built year.
+     */
+    public int rebuildYear(int year) {
+        String tableName = "donations_" + year;
+
+        jdbcTemplate.update("DELETE FROM donation_daily_rollup WHERE rollup_year = ?", year);
+        int buckets = jdbcTemplate.update("""
+            INSERT INTO donation_daily_rollup
+                (rollup_year, rollup_date, donation_type, created_by, donation_count, total_amount)
+            SELECT ?, created_date, COALESCE(donation_type, ''), created_by, COUNT(*), SUM(donation_amount)
+            FROM %s
+            GROUP BY created_date, COALESCE(donation_type, ''), created_by
+            """.formatted(tableName), year);
+
+        log.info("Rebuilt donation rollup for table {}: {} buckets", tableName, buckets);
+        return buckets;
+    }
+
+    /**
+     * Aggregate view of one year
+     */
+    public record YearSummary(long totalRecords, BigDecimal totalAmount, LocalDate firstDonationDate,
+                              LocalDate lastDonationDate) {}
+}
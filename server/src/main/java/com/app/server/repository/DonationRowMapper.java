@@ -0,0 +1,38 @@
+package com.app.server.repository;
+
+import com.app.server.model.Donation;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps a donations_<year> row, selected with SELECT *, to a Donation.
+ * Stateless, so one instance can be shared.
+ */
+public class DonationRowMapper implements RowMapper<Donation> {
+
+    @Override
+    public Donation mapRow(ResultSet rs, int rowNum) throws SQLException {
+        Donation donation = new Donation();
+        donation.setId(rs.getLong("id"));
+        donation.setDonorName(rs.getString("donor_name"));
+        donation.setDonorAddress(rs.getString("donor_address"));
+        donation.setDonorPhone(rs.getString("donor_phone"));
+        donation.setDonationAmount(rs.getBigDecimal("donation_amount"));
+        donation.setDonationType(rs.getString("donation_type"));
+        donation.setNotes(rs.getString("notes"));
+        donation.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+        donation.setCreatedDate(rs.getDate("created_date").toLocalDate());
+        donation.setCreatedBy(rs.getString("created_by"));
+
+        if (rs.getTimestamp("updated_at") != null) {
+            donation.setUpdatedAt(rs.getTimestamp("updated_at").toLocalDateTime());
+        }
+        if (rs.getString("updated_by") != null) {
+            donation.setUpdatedBy(rs.getString("updated_by"));
+        }
+
+        return donation;
+    }
+}
@@ -0,0 +1,92 @@
+package com.app.server.repository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records of deleted donations, kept so offline clients can learn about
+ * deletions through delta sync. Rows older than the retention window are purged.
+ */
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class DonationTombstoneRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Create the tombstone table if it does not exist yet
+     */
+    @PostConstruct
+    public void createTableIfNotExists() {
+        jdbcTemplate.execute("""
+            CREATE TABLE IF NOT EXISTS donation_tombstones (
+                id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                donation_year INT NOT NULL,
+                donation_id BIGINT NOT NULL,
+                created_by VARCHAR(100) NOT NULL,
+                deleted_at TIMESTAMP NOT NULL,
+                deleted_by VARCHAR(100) NULL
+            )
+            """);
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_donation_tombstones_deleted_at ON donation_tombstones (deleted_at)");
+    }
+
+    /**
+     * Record that a donation was deleted, stamped by the database clock like
+     * created_at and updated_at. Must run in the same transaction as the delete.
+     */
+    public void save(int year, long donationId, String createdBy, String deletedBy) {
+        jdbcTemplate.update("""
+            INSERT INTO donation_tombstones (donation_year, donation_id, created_by, deleted_at, deleted_by)
+            VALUES (?, ?, ?, CURRENT_TIMESTAMP, ?)
+            """, year, donationId, createdBy, deletedBy);
+    }
+
+    /**
+     * Find up to limit deletions in [from, to), oldest first, optionally
+     * limited to one creator
+     */
+    public List<Tombstone> findDeletedBetween(LocalDateTime from, LocalDateTime to, String createdBy, int limit) {
+        StringBuilder sql = new StringBuilder("""
+            SELECT donation_year, donation_id, deleted_at FROM donation_tombstones
+            WHERE deleted_at >= ? AND deleted_at < ?
+            """);
+        List<Object> params = new ArrayList<>();
+        params.add(Timestamp.valueOf(from));
+        params.add(Timestamp.valueOf(to));
+        if (createdBy != null) {
+            sql.append(" AND created_by = ?");
+            params.add(createdBy);
+        }
+        sql.append(" ORDER BY deleted_at, id LIMIT ?");
+        params.add(limit);
+
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> new Tombstone(
+                rs.getInt("donation_year"),
+                rs.getLong("donation_id"),
+                rs.getTimestamp("deleted_at").toLocalDateTime()), params.toArray());
+    }
+
+    /**
+     * Remove tombstones older than the given instant
+     */
+    public int purgeOlderThan(LocalDateTime cutoff) {
+        int purged = jdbcTemplate.update("DELETE FROM donation_tombstones WHERE deleted_at < ?", Timestamp.valueOf(cutoff));
+        log.info("Purged {} donation tombstones older than {}", purged, cutoff);
+        return purged;
+    }
+
+    /**
+     * A deleted donation
+     */
+    public record Tombstone(int year, long id, LocalDateTime deletedAt) {}
+}
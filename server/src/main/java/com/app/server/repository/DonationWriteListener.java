@@ -0,0 +1,32 @@
+package com.app.server.repository;
+
+import com.app.server.model.Donation;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Told about every donation write DonationRepository makes, from inside the
+ * transaction that makes it. The year's change version moves on once that
+ * transaction commits; listeners that need it use DonationYearVersions.afterBump.
+ */
+public interface DonationWriteListener {
+
+    /**
+     * Donations inserted into a year table, with their generated ids set
+     */
+    void donationsSaved(int year, List<Donation> donations);
+
+    /**
+     * A donation edited in place, with its amount and type before and after;
+     * created date and collector never change
+     */
+    void donationUpdated(int year, long id, LocalDate createdDate, String createdBy,
+                         BigDecimal oldAmount, String oldType, BigDecimal donationAmount, String donationType);
+
+    /**
+     * A donation deleted from a year table
+     */
+    void donationDeleted(int year, long id);
+}
@@ -0,0 +1,213 @@
+package com.app.server.repository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+/**
+ * Monotonically increasing change version per donation year table, kept in
+ * donation_year_versions and bumped once by every transaction that writes to
+ * the table. Readers that remember the version they saw know the year is
+ * unchanged while it stays the same, at the cost of one primary-key lookup:
+ * ETags and the closed-year response cache are built on it.
+ *
+ * The bump runs right after the writing transaction commits, in a short
+ * transaction of its own, so writers never hold the version row while they
+ * work and do not queue behind each other on it. Every instance sharing the
+ * database therefore sees the version move just after the rows change: a
+ * reader must take the version before reading the rows it describes, so the
+ * version it holds is never newer than what it read.
+ */
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class DonationYearVersions {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Create the version table if it does not exist yet
+     */
+    @PostConstruct
+    public void createTableIfNotExists() {
+        jdbcTemplate.execute("""
+            CREATE TABLE IF NOT EXISTS donation_year_versions (
+                table_year INT PRIMARY KEY,
+                version BIGINT NOT NULL
+            )
+            """);
+    }
+
+    /**
+     * Current change version of a year table, 0 before its first write
+     */
+    public long current(int year) {
+        List<Long> version = jdbcTemplate.queryForList(
+                "SELECT version FROM donation_year_versions WHERE table_year = ?", Long.class, year);
+        return version.isEmpty() ? 0 : version.get(0);
+    }
+
+    /**
+     * Record a write to a year table. Inside a transaction the year's version
+     * moves once, however many writes it makes, after the transaction commits;
+     * outside one it moves at once. A year's first version is the current
+     * time in milliseconds, so a recreated database does not reissue versions
+     * (and ETags) handed out before.
+     */
+    public void bump(int year) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            increment(year);
+            return;
+        }
+        pendingBumps().putIfAbsent(year, new ArrayList<>());
+    }
+
+    /**
+     * Hand the version this transaction's bump of a year moves it to, once
+     * it has, to a callback. Must follow bump(year) in the same transaction;
+     * outside one the callback gets the year's current version. Not called if
+     * the transaction rolls back or the bump fails.
+     */
+    public void afterBump(int year, LongConsumer callback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            callback.accept(current(year));
+            return;
+        }
+        pendingBumps().computeIfAbsent(year, key -> new ArrayList<>()).add(callback);
+    }
+
+    /**
+     * Years bumped by the current transaction, with their callbacks. Kept on
+     * the transaction's own synchronisation, so a transaction suspended
+     * around an inner one keeps its bumps to itself.
+     */
+    private Map<Integer, List<LongConsumer>> pendingBumps() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingBumps pending && pending.owner() == this) {
+                return pending.years();
+            }
+        }
+        PendingBumps pending = new PendingBumps(this);
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending.years();
+    }
+
+    // Not a record: synchronisations are kept in a set, and these mutate
+    private static final class PendingBumps implements TransactionSynchronization {
+
+        private final DonationYearVersions owner;
+        private final Map<Integer, List<LongConsumer>> years = new LinkedHashMap<>();
+
+        PendingBumps(DonationYearVersions owner) {
+            this.owner = owner;
+        }
+
+        DonationYearVersions owner() {
+            return owner;
+        }
+
+        Map<Integer, List<LongConsumer>> years() {
+            return years;
+        }
+
+        @Override
+        public void afterCommit() {
+            years.forEach((year, callbacks) -> {
+                long version;
+                try {
+                    version = owner.increment(year);
+                } catch (RuntimeException e) {
+                    log.error("Failed to bump change version of donation year {}: {}", year, e.getMessage());
+                    return;
+                }
+                callbacks.forEach(callback -> callback.accept(version));
+            });
+        }
+    }
+
+    /**
+     * Move a year's version on in a transaction of its own and return the new
+     * version. After a commit the connection is still the writer's, with
+     * auto-commit off, so the increment is committed on it explicitly.
+     */
+    private long increment(int year) {
+        return jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                long version = increment(connection, year);
+                connection.commit();
+                return version;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        });
+    }
+
+    private static long increment(Connection connection, int year) throws SQLException {
+        String updateSql = "UPDATE donation_year_versions SET version = version + 1 WHERE table_year = ?";
+        if (executeUpdate(connection, updateSql, year) == 0) {
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO donation_year_versions (table_year, version) VALUES (?, ?)")) {
+                insert.setInt(1, year);
+                insert.setLong(2, System.currentTimeMillis());
+                insert.executeUpdate();
+            } catch (SQLException e) {
+                if (e.getSQLState() == null || !e.getSQLState().startsWith("23")) {
+                    throw e;
+                }
+                // Another writer created the row first
+                executeUpdate(connection, updateSql, year);
+            }
+        }
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT version FROM donation_year_versions WHERE table_year = ?")) {
+            select.setInt(1, year);
+            try (ResultSet rs = select.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    private static int executeUpdate(Connection connection, String sql, int year) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, year);
+            return statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Weak ETag for a representation of a year table: the version plus a hash
+     * of whatever else shapes the response (view, paging parameters)
+     */
+    public String etag(int year, Object... variant) {
+        return "W/\"" + year + "-" + current(year) + "-" + Integer.toHexString(Arrays.hashCode(variant)) + "\"";
+    }
+
+    /**
+     * Weak ETag for a representation that depends on no year table's rows
+     */
+    public String contentEtag(Object... variant) {
+        return "W/\"" + Integer.toHexString(Arrays.hashCode(variant)) + "\"";
+    }
+}
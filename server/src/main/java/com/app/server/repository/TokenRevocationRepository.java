@@ -0,0 +1,99 @@
+package com.app.server.repository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Revoked tokens (by jti) and revoked users (every token issued before
+ * revoked_at). Rows are kept until the tokens they cover would have expired.
+ */
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class TokenRevocationRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Create the revocation table if it does not exist yet
+     */
+    @PostConstruct
+    public void createTableIfNotExists() {
+        jdbcTemplate.execute("""
+            CREATE TABLE IF NOT EXISTS token_revocations (
+                id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                token_id VARCHAR(64) NULL,
+                full_name VARCHAR(101) NULL,
+                revoked_at TIMESTAMP NOT NULL,
+                expires_at TIMESTAMP NOT NULL
+            )
+            """);
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_token_revocations_token_id ON token_revocations (token_id)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_token_revocations_full_name ON token_revocations (full_name)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_token_revocations_expires_at ON token_revocations (expires_at)");
+    }
+
+    /**
+     * Revoke a single token until it expires
+     */
+    public void saveTokenRevocation(String tokenId, LocalDateTime revokedAt, LocalDateTime expiresAt) {
+        jdbcTemplate.update("INSERT INTO token_revocations (token_id, revoked_at, expires_at) VALUES (?, ?, ?)",
+                tokenId, Timestamp.valueOf(revokedAt), Timestamp.valueOf(expiresAt));
+    }
+
+    /**
+     * Revoke every token a user was issued before revokedAt
+     */
+    public void saveUserRevocation(String fullName, LocalDateTime revokedAt, LocalDateTime expiresAt) {
+        jdbcTemplate.update("INSERT INTO token_revocations (full_name, revoked_at, expires_at) VALUES (?, ?, ?)",
+                fullName, Timestamp.valueOf(revokedAt), Timestamp.valueOf(expiresAt));
+    }
+
+    /**
+     * Check whether a token is revoked, by its own ID or through its user
+     */
+    public boolean isRevoked(String tokenId, String fullName, LocalDateTime issuedAt) {
+        Integer count = jdbcTemplate.queryForObject("""
+            SELECT COUNT(*) FROM token_revocations
+            WHERE (token_id = ?) OR (full_name = ? AND revoked_at > ?)
+            """, Integer.class, tokenId, fullName, Timestamp.valueOf(issuedAt));
+        return count != null && count > 0;
+    }
+
+    /**
+     * Keys of all revocations that still cover unexpired tokens, for rebuilding the filter
+     */
+    public List<String> findActiveKeys(LocalDateTime now) {
+        return jdbcTemplate.query("""
+            SELECT token_id, full_name FROM token_revocations WHERE expires_at > ?
+            """, (rs, rowNum) -> rs.getString("token_id") != null
+                ? tokenKey(rs.getString("token_id"))
+                : userKey(rs.getString("full_name")), Timestamp.valueOf(now));
+    }
+
+    /**
+     * Remove revocations whose tokens have all expired
+     */
+    public int purgeExpired(LocalDateTime now) {
+        int purged = jdbcTemplate.update("DELETE FROM token_revocations WHERE expires_at <= ?", Timestamp.valueOf(now));
+        if (purged > 0) {
+            log.info("Purged {} expired token revocations", purged);
+        }
+        return purged;
+    }
+
+    public static String tokenKey(String tokenId) {
+        return "jti:" + tokenId;
+    }
+
+    public static String userKey(String fullName) {
+        return "user:" + fullName;
+    }
+}
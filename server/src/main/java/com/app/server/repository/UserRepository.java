@@ -2,9 +2,11 @@ package com.app.server.repository;
 
 import com.app.server.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -24,6 +26,15 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findActiveUserByFirstNameAndLastName(@Param("firstName") String firstName,
             @Param("lastName") String lastName);
 
+    /**
+     * Replace a user's password hash only while it is still the given one, so
+     * a rehash on login cannot undo a password change made in the meantime
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.id = :id AND u.password = :oldHash")
+    int replacePasswordHash(@Param("id") Long id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
+
     /**
      * Check if firstName and lastName combination exists
      */
@@ -0,0 +1,78 @@
+package com.app.server.security;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size Bloom filter over strings. mightContain() never returns false for
+ * an added key; it returns true for an absent key with about the configured
+ * false-positive rate. Safe for concurrent add and lookup.
+ */
+public class BloomFilter {
+
+    private static final long SEED_1 = 0x9E3779B97F4A7C15L;
+    private static final long SEED_2 = 0xC2B2AE3D27D4EB4FL;
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * Size the filter for the expected number of keys and false-positive rate
+     */
+    public BloomFilter(int expectedKeys, double falsePositiveRate) {
+        int keys = Math.max(1, expectedKeys);
+        long optimalBits = (long) Math.ceil(-keys * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bitCount = Math.max(64, optimalBits);
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / keys * Math.log(2)));
+        this.bits = new AtomicLongArray((int) ((bitCount + 63) / 64));
+    }
+
+    public void add(String key) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        long h1 = hash(bytes, SEED_1);
+        long h2 = hash(bytes, SEED_2) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    public boolean mightContain(String key) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        long h1 = hash(bytes, SEED_1);
+        long h2 = hash(bytes, SEED_2) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Seeded FNV-1a with a SplitMix64 finalizer; two seeds give the double-hashing pair
+     */
+    private static long hash(byte[] bytes, long seed) {
+        long h = 0xCBF29CE484222325L ^ seed;
+        for (byte b : bytes) {
+            h ^= b & 0xFF;
+            h *= 0x100000001B3L;
+        }
+        h ^= h >>> 30;
+        h *= 0xBF58476D1CE4E5B9L;
+        h ^= h >>> 27;
+        h *= 0x94D049BB133111EBL;
+        h ^= h >>> 31;
+        return h;
+    }
+}
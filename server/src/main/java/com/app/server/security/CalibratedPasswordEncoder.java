@@ -0,0 +1,100 @@
+package com.app.server.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+
+/**
+ * BCrypt encoder whose cost is chosen for the hardware it runs on. At startup
+ * the time of one hash is measured and the highest cost whose hash fits the
+ * target login latency is used. Stored hashes with a lower cost report
+ * upgradeEncoding() == true so they are rehashed on the next successful login;
+ * hashes with a higher cost, e.g. made on faster hardware, are never weakened.
+ */
+@Slf4j
+public class CalibratedPasswordEncoder extends BCryptPasswordEncoder {
+
+    private static final int MEASURE_ROUNDS = 3;
+
+    private final int strength;
+
+    public CalibratedPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+
+    /**
+     * Benchmark hashing and build an encoder with the highest cost between
+     * minStrength and maxStrength that stays within the target latency
+     */
+    public static CalibratedPasswordEncoder calibrate(Duration targetLatency, int minStrength, int maxStrength) {
+        long baseNanos = measure(minStrength);
+        long targetNanos = targetLatency.toNanos();
+
+        // Each extra cost step doubles the work
+        int strength = minStrength;
+        long estimate = baseNanos;
+        while (strength < maxStrength && estimate * 2 <= targetNanos) {
+            strength++;
+            estimate *= 2;
+        }
+
+        // Confirm the extrapolation; step back if the chosen cost overshoots noticeably
+        long measured = strength == minStrength ? baseNanos : measure(strength);
+        if (strength > minStrength && measured > targetNanos + targetNanos / 2) {
+            strength--;
+            measured /= 2;
+        }
+
+        log.info("Calibrated BCrypt cost {} (~{} ms per hash, target {} ms, cost {} took {} ms)",
+                strength, measured / 1_000_000, targetLatency.toMillis(), minStrength, baseNanos / 1_000_000);
+        return new CalibratedPasswordEncoder(strength);
+    }
+
+    /**
+     * Fastest of a few hashes at the given cost, after one warm-up hash
+     */
+    private static long measure(int strength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        encoder.encode("calibration-warmup");
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURE_ROUNDS; i++) {
+            long start = System.nanoTime();
+            encoder.encode("calibration-" + i);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    /**
+     * True when the hash was made with a lower cost than the current one
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        Integer cost = costOf(encodedPassword);
+        return cost != null && cost < strength;
+    }
+
+    /**
+     * Cost field of a hash such as $2a$10$..., or null when it is not BCrypt
+     */
+    private static Integer costOf(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$') {
+            return null;
+        }
+        int costStart = encodedPassword.indexOf('$', 1) + 1;
+        if (costStart <= 0 || costStart + 2 > encodedPassword.length()) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(costStart, costStart + 2));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
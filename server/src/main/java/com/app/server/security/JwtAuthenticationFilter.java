@@ -33,24 +33,25 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String jwt = getJwtFromRequest(request);
 
             if (StringUtils.hasText(jwt)) {
-                String fullName = jwtService.extractFullName(jwt);
-                String role = jwtService.extractRole(jwt);
+                // One verification per token; repeat requests are a cache lookup
+                JwtService.VerifiedToken verified = jwtService.verifyToken(jwt);
 
-                if (fullName != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    if (jwtService.validateToken(jwt, fullName)) {
+                if (verified != null && verified.fullName() != null
+                        && SecurityContextHolder.getContext().getAuthentication() == null) {
+                    String fullName = verified.fullName();
+                    String role = verified.role();
 
-                        // Create authorities based on role
-                        List<SimpleGrantedAuthority> authorities = List.of(
-                                new SimpleGrantedAuthority("ROLE_" + role));
+                    // Create authorities based on role
+                    List<SimpleGrantedAuthority> authorities = List.of(
+                            new SimpleGrantedAuthority("ROLE_" + role));
 
-                        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                                fullName, null, authorities);
-                        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                            fullName, null, authorities);
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                        SecurityContextHolder.getContext().setAuthentication(authentication);
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
 
-                        log.debug("Set authentication for user: {} with role: {}", fullName, role);
-                    }
+                    log.debug("Set authentication for user: {} with role: {}", fullName, role);
                 }
             }
         } catch (Exception ex) {
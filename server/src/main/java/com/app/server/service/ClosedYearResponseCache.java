@@ -0,0 +1,157 @@
+package com.app.server.service;
+
+import com.app.server.repository.DonationYearVersions;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Fully serialised GET /api/donations/{year} responses for closed (past)
+ * years, one per year and view: the admin view of every donation, or one
+ * collector's own donations. Past year tables rarely change, so a cached
+ * body is written straight to the response without querying, mapping or
+ * serialising again. Bodies are optionally also stored gzip-compressed and
+ * served as-is to clients that accept gzip; the uncompressed body is kept
+ * alongside for those that do not, so no request inflates one.
+ *
+ * Each entry remembers the year's change version it was built at and is
+ * discarded once any write, from any instance, moves the version on. The cache is bounded by
+ * total body bytes, evicting least recently used.
+ */
+@Component
+@Slf4j
+public class ClosedYearResponseCache {
+
+    private final boolean enabled;
+    private final boolean gzip;
+    private final long maxBytes;
+    private final DonationYearVersions donationYearVersions;
+    private final LinkedHashMap<ViewKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ClosedYearResponseCache(@Value("${app.donations.closed-year-cache.enabled:true}") boolean enabled,
+                                   @Value("${app.donations.closed-year-cache.gzip:true}") boolean gzip,
+                                   @Value("${app.donations.closed-year-cache.max-bytes:67108864}") long maxBytes,
+                                   DonationYearVersions donationYearVersions,
+                                   MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.donationYearVersions = donationYearVersions;
+        this.gzip = gzip;
+        this.maxBytes = maxBytes;
+        FunctionCounter.builder("donations.closed_year_cache.requests", hits, LongAdder::sum).tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("donations.closed_year_cache.requests", misses, LongAdder::sum).tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("donations.closed_year_cache.bytes", this, cache -> cache.stats().bytes()).register(meterRegistry);
+    }
+
+    /**
+     * Whether responses for the year are served from this cache
+     */
+    public boolean isCacheable(int year) {
+        return enabled && year < LocalDate.now().getYear();
+    }
+
+    /**
+     * Cached body for a year and view (createdBy null for the admin view),
+     * serialising and caching it on a miss. A null body from the loader means
+     * "do not cache" and is returned as null.
+     */
+    public CachedResponse get(int year, String createdBy, BodyLoader loader) throws IOException {
+        ViewKey key = new ViewKey(year, createdBy);
+        long version = donationYearVersions.current(year);
+        synchronized (this) {
+            Entry cached = entries.get(key);
+            if (cached != null) {
+                if (cached.version() == version) {
+                    hits.increment();
+                    return cached.response();
+                }
+                entries.remove(key);
+                totalBytes -= cached.response().size();
+            }
+        }
+
+        misses.increment();
+        byte[] json = loader.load();
+        if (json == null) {
+            return null;
+        }
+        CachedResponse response = new CachedResponse(json, gzip ? compress(json) : null);
+
+        synchronized (this) {
+            // A write to the year since loading makes this body stale
+            if (donationYearVersions.current(year) == version && response.size() <= maxBytes) {
+                Entry previous = entries.put(key, new Entry(version, response));
+                totalBytes += response.size() - (previous != null ? previous.response().size() : 0);
+                evictToLimit();
+            }
+        }
+        return response;
+    }
+
+    private void evictToLimit() {
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            totalBytes -= eldest.next().response().size();
+            eldest.remove();
+        }
+    }
+
+    private static byte[] compress(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, json.length / 6));
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+            gzipOut.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Hit/miss counters, entry count and bytes held
+     */
+    public synchronized CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), entries.size(), totalBytes);
+    }
+
+    private record ViewKey(int year, String createdBy) {}
+
+    private record Entry(long version, CachedResponse response) {}
+
+    /**
+     * A serialised JSON response body, and the same body gzip-compressed
+     * (null when compression is off)
+     */
+    public record CachedResponse(byte[] json, byte[] gzipped) {
+
+        /**
+         * Bytes held by both copies
+         */
+        long size() {
+            return json.length + (gzipped != null ? gzipped.length : 0);
+        }
+    }
+
+    @FunctionalInterface
+    public interface BodyLoader {
+        byte[] load() throws IOException;
+    }
+
+    public record CacheStats(long hits, long misses, int entries, long bytes) {}
+}
@@ -0,0 +1,138 @@
+package com.app.server.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming RFC 4180 reader. Returns one record at a time; quoted fields may
+ * hold commas, doubled quotes and line breaks. Only the current record is
+ * kept in memory, so files of any size can be read.
+ */
+final class CsvReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder field = new StringBuilder();
+    private int position;
+    private int limit;
+    private long line = 1;
+    private long recordLine;
+    private boolean started;
+
+    CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Read the next record, or null at the end of the input
+     */
+    List<String> next() throws IOException {
+        if (!started) {
+            started = true;
+            // Spreadsheet exports often start with a byte order mark
+            if (peek() == '\uFEFF') {
+                position++;
+            }
+        }
+        if (peek() < 0) {
+            return null;
+        }
+
+        recordLine = line;
+        List<String> record = new ArrayList<>();
+        field.setLength(0);
+        boolean quoted = false;
+        boolean afterQuote = false;
+        while (true) {
+            int c = read();
+            if (c < 0) {
+                if (quoted) {
+                    throw new IOException("Unterminated quoted field starting on line " + recordLine);
+                }
+                record.add(field.toString());
+                return record;
+            }
+            if (quoted) {
+                if (c == '"') {
+                    if (peek() == '"') {
+                        position++;
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        afterQuote = true;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == ',') {
+                record.add(field.toString());
+                field.setLength(0);
+                afterQuote = false;
+            } else if (c == '\r' || c == '\n') {
+                if (c == '\r' && peek() == '\n') {
+                    position++;
+                }
+                line++;
+                record.add(field.toString());
+                return record;
+            } else if (c == '"' && field.isEmpty() && !afterQuote) {
+                quoted = true;
+            } else {
+                field.append((char) c);
+            }
+        }
+    }
+
+    /**
+     * Line on which the record last returned by next() started
+     */
+    long recordLine() {
+        return recordLine;
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+        if (c >= 0) {
+            position++;
+        }
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (position == limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position];
+    }
+
+    /**
+     * Quote a value for writing into a CSV file when it needs it
+     */
+    static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
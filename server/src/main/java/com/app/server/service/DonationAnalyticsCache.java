@@ -0,0 +1,762 @@
+package com.app.server.service;
+
+import com.app.server.model.Donation;
+import com.app.server.repository.DonationWriteListener;
+import com.app.server.repository.DonationYearVersions;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Columnar in-memory snapshots of year tables for dashboard aggregates
+ * (totals by month, donation type and collector, with filters), answered
+ * by scanning primitive arrays instead of querying. Per row a snapshot holds
+ * the id, created_date as an epoch day, the amount in paise, and
+ * donation_type/created_by as codes into per-year dictionaries.
+ *
+ * A year is loaded on its first query and remembers the change version it
+ * was loaded at. Writes made through this instance are applied in the order
+ * of the versions their commits were given, moving the snapshot's version on
+ * with them. Versions are taken just after commit, so two writers can get
+ * them the other way round from their commits; an edit carries the values it
+ * replaced, and one that does not find them marks the snapshot stale.
+ * Every query compares the snapshot's version with the year's version in the
+ * database; a snapshot left behind, because another instance wrote to the
+ * year or a rebuild changed it, is reloaded from the table.
+ *
+ * Snapshots together hold at most max-rows: room for a year is made before
+ * it loads by dropping least recently used years other than the current one.
+ */
+@Component
+@Slf4j
+public class DonationAnalyticsCache implements DonationWriteListener {
+
+    // Upper bound on month x type x collector cells in one aggregate
+    private static final int MAX_CELLS = 1 << 22;
+
+    // How long a query waits for this instance's just-committed writes to
+    // reach the snapshot before reloading it instead
+    private static final Duration CATCH_UP_TIMEOUT = Duration.ofMillis(200);
+
+    // Writes held back waiting for an earlier version; beyond this the gap is
+    // not going to close and the snapshot is reloaded on its next query
+    private static final int MAX_HELD_BACK = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DonationTableService donationTableService;
+    private final DonationYearVersions donationYearVersions;
+    private final boolean enabled;
+    private final long maxRows;
+    private final LinkedHashMap<Integer, YearSnapshot> snapshots = new LinkedHashMap<>(16, 0.75f, true);
+
+    public DonationAnalyticsCache(JdbcTemplate jdbcTemplate,
+                                  DonationTableService donationTableService,
+                                  DonationYearVersions donationYearVersions,
+                                  @Value("${app.donations.analytics.enabled:true}") boolean enabled,
+                                  @Value("${app.donations.analytics.max-rows:5000000}") long maxRows,
+                                  MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.donationTableService = donationTableService;
+        this.donationYearVersions = donationYearVersions;
+        this.enabled = enabled;
+        this.maxRows = maxRows;
+        Gauge.builder("donations.analytics.rows", this, DonationAnalyticsCache::rowsHeld).register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Count and total amount of a year's donations matching the query,
+     * grouped by the query's dimensions. Groups are ordered by month, then
+     * donation type and collector in order of first appearance.
+     */
+    public Aggregate aggregate(int year, Query query) {
+        if (!enabled) {
+            throw new IllegalStateException("Donation analytics are disabled");
+        }
+        if (!donationTableService.tableExists(year)) {
+            return new Aggregate(0, BigDecimal.ZERO.setScale(2), List.of());
+        }
+
+        YearSnapshot snapshot;
+        synchronized (snapshots) {
+            snapshot = snapshots.computeIfAbsent(year, YearSnapshot::new);
+        }
+        try {
+            snapshot.ensureCurrent();
+        } catch (RuntimeException e) {
+            // Queued writes are only valid on top of a load; start over next time
+            synchronized (snapshots) {
+                snapshots.remove(year, snapshot);
+            }
+            throw e;
+        }
+        evictToLimit();
+        return snapshot.aggregate(query);
+    }
+
+    @Override
+    public void donationsSaved(int year, List<Donation> donations) {
+        List<Delta> deltas = new ArrayList<>(donations.size());
+        for (Donation donation : donations) {
+            if (donation.getId() == null) {
+                continue;
+            }
+            deltas.add(new Insert(donation.getId(), donation.getCreatedDate().toEpochDay(),
+                    toPaise(donation.getDonationAmount()), donation.getDonationType(), donation.getCreatedBy()));
+        }
+        afterCommit(year, deltas);
+    }
+
+    @Override
+    public void donationUpdated(int year, long id, LocalDate createdDate, String createdBy,
+                                BigDecimal oldAmount, String oldType, BigDecimal donationAmount, String donationType) {
+        afterCommit(year, List.of(new Update(id, toPaise(oldAmount), oldType, toPaise(donationAmount), donationType)));
+    }
+
+    @Override
+    public void donationDeleted(int year, long id) {
+        afterCommit(year, List.of(new Remove(id)));
+    }
+
+    /**
+     * Drop a year's snapshot; the next query reloads it from the table
+     */
+    public void evictYear(int year) {
+        synchronized (snapshots) {
+            snapshots.remove(year);
+        }
+    }
+
+    /**
+     * Rows held across all loaded snapshots
+     */
+    public long rowsHeld() {
+        synchronized (snapshots) {
+            return snapshots.values().stream().mapToLong(YearSnapshot::rows).sum();
+        }
+    }
+
+    /**
+     * Make room for loading a year of the given size by dropping least
+     * recently used years other than it and the current year. Returns how
+     * many rows the year may hold.
+     */
+    private long reserveRows(int year, long expectedRows) {
+        int currentYear = LocalDate.now().getYear();
+        synchronized (snapshots) {
+            long others = snapshots.entrySet().stream()
+                    .filter(entry -> entry.getKey() != year)
+                    .mapToLong(entry -> entry.getValue().rows())
+                    .sum();
+            Iterator<Map.Entry<Integer, YearSnapshot>> eldest = snapshots.entrySet().iterator();
+            while (others + expectedRows > maxRows && eldest.hasNext()) {
+                Map.Entry<Integer, YearSnapshot> entry = eldest.next();
+                if (entry.getKey() != year && entry.getKey() != currentYear) {
+                    others -= entry.getValue().rows();
+                    eldest.remove();
+                    log.info("Dropped donation analytics snapshot for year {} to load year {}", entry.getKey(), year);
+                }
+            }
+            long available = maxRows - others;
+            if (expectedRows > available) {
+                throw new IllegalStateException("Year " + year + " has " + expectedRows
+                        + " donations, more than the " + available + " analytics rows available");
+            }
+            return available;
+        }
+    }
+
+    /**
+     * Drop least recently used years other than the current one while
+     * snapshots, grown by writes since they loaded, hold more than max-rows
+     */
+    private void evictToLimit() {
+        int currentYear = LocalDate.now().getYear();
+        synchronized (snapshots) {
+            long rows = snapshots.values().stream().mapToLong(YearSnapshot::rows).sum();
+            Iterator<Map.Entry<Integer, YearSnapshot>> eldest = snapshots.entrySet().iterator();
+            while (rows > maxRows && eldest.hasNext()) {
+                Map.Entry<Integer, YearSnapshot> entry = eldest.next();
+                if (entry.getKey() != currentYear) {
+                    rows -= entry.getValue().rows();
+                    eldest.remove();
+                    log.info("Dropped donation analytics snapshot for year {} ({} rows held)", entry.getKey(), rows);
+                }
+            }
+        }
+    }
+
+    /**
+     * Queue deltas for a tracked year, to be applied under the version the
+     * year is bumped to once the surrounding transaction commits. A
+     * transaction's writes to a year share one version, so they are gathered
+     * and applied together. Writes to years nobody has queried are not
+     * tracked; should such a year start loading before the write commits, the
+     * version check on its next query finds the gap.
+     */
+    private void afterCommit(int year, List<Delta> deltas) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (snapshots) {
+            if (!snapshots.containsKey(year)) {
+                return;
+            }
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            donationYearVersions.afterBump(year, version -> apply(year, version, deltas));
+            return;
+        }
+        Map<Integer, List<Delta>> pending = pendingDeltas();
+        List<Delta> gathered = pending.get(year);
+        if (gathered == null) {
+            gathered = new ArrayList<>();
+            pending.put(year, gathered);
+            List<Delta> transactionDeltas = gathered;
+            donationYearVersions.afterBump(year, version -> apply(year, version, transactionDeltas));
+        }
+        gathered.addAll(deltas);
+    }
+
+    private Map<Integer, List<Delta>> pendingDeltas() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingDeltas pending && pending.owner == this) {
+                return pending.years;
+            }
+        }
+        PendingDeltas pending = new PendingDeltas(this);
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending.years;
+    }
+
+    private void apply(int year, long version, List<Delta> deltas) {
+        YearSnapshot snapshot;
+        synchronized (snapshots) {
+            snapshot = snapshots.get(year);
+        }
+        if (snapshot != null) {
+            snapshot.apply(version, deltas);
+        }
+    }
+
+    private static long toPaise(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Filters (null for any) and grouping dimensions of an aggregate
+     */
+    public record Query(boolean byMonth, boolean byType, boolean byCollector,
+                        LocalDate from, LocalDate to, String donationType, String createdBy) {}
+
+    /**
+     * One group of an aggregate; dimensions not grouped by are null
+     */
+    public record Group(Integer month, String donationType, String createdBy, long count, BigDecimal totalAmount) {}
+
+    public record Aggregate(long count, BigDecimal totalAmount, List<Group> groups) {}
+
+    private sealed interface Delta permits Insert, Update, Remove {}
+
+    private record Insert(long id, long epochDay, long paise, String donationType, String createdBy) implements Delta {}
+
+    private record Update(long id, long oldPaise, String oldType, long paise, String donationType) implements Delta {}
+
+    private record Remove(long id) implements Delta {}
+
+    /**
+     * A transaction's deltas per year, kept until the years are bumped after
+     * commit; the bump callbacks apply them
+     */
+    private static final class PendingDeltas implements TransactionSynchronization {
+
+        private final DonationAnalyticsCache owner;
+        private final Map<Integer, List<Delta>> years = new HashMap<>();
+
+        PendingDeltas(DonationAnalyticsCache owner) {
+            this.owner = owner;
+        }
+    }
+
+    private record VersionedDeltas(long version, List<Delta> deltas) {}
+
+    /**
+     * A year's snapshot: its columns and the change version they reflect.
+     * Writes committed while the columns (re)load are queued and replayed on
+     * top; writes arriving ahead of a missing version are held back until it
+     * arrives.
+     */
+    private final class YearSnapshot {
+
+        private final int year;
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Condition advanced = lock.writeLock().newCondition();
+        private final List<VersionedDeltas> pending = new ArrayList<>();
+        private final TreeMap<Long, List<Delta>> heldBack = new TreeMap<>();
+        private volatile Columns columns;
+        private boolean loading;
+        private boolean stale;
+        private long version;
+
+        YearSnapshot(int year) {
+            this.year = year;
+        }
+
+        long rows() {
+            Columns loaded = columns;
+            return loaded != null ? loaded.size : 0;
+        }
+
+        /**
+         * Load the columns if needed, then bring them up to the year's
+         * version in the database, reloading if this instance's writes do
+         * not get them there
+         */
+        void ensureCurrent() {
+            if (columns == null) {
+                synchronized (this) {
+                    if (columns == null) {
+                        load();
+                        return;
+                    }
+                }
+            }
+            if (!awaitVersion(donationYearVersions.current(year))) {
+                synchronized (this) {
+                    if (!awaitVersion(donationYearVersions.current(year))) {
+                        load();
+                    }
+                }
+            }
+        }
+
+        private boolean awaitVersion(long target) {
+            lock.writeLock().lock();
+            try {
+                long nanos = CATCH_UP_TIMEOUT.toNanos();
+                while (!stale && version < target) {
+                    if (nanos <= 0) {
+                        return false;
+                    }
+                    nanos = advanced.awaitNanos(nanos);
+                }
+                return !stale;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * Read the table into new columns; queries keep using the old ones
+         * until the new ones replace them. Callers hold this snapshot's monitor.
+         */
+        private void load() {
+            long started = System.nanoTime();
+            long budget = reserveRows(year, donationTableService.getTableStats(year).totalRecords());
+            lock.writeLock().lock();
+            try {
+                loading = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            try {
+                // Read before the rows: writes with a later version are replayed from pending
+                long loadedVersion = donationYearVersions.current(year);
+                Columns loaded = new Columns(year);
+                jdbcTemplate.query("SELECT id, created_date, donation_amount, donation_type, created_by FROM donations_"
+                        + year, (RowCallbackHandler) rs -> {
+                    if (loaded.size >= budget) {
+                        throw new IllegalStateException("Year " + year + " has more donations than the "
+                                + budget + " analytics rows available");
+                    }
+                    loaded.insert(rs.getLong(1), rs.getObject(2, LocalDate.class).toEpochDay(),
+                            toPaise(rs.getBigDecimal(3)), rs.getString(4), rs.getString(5));
+                });
+
+                lock.writeLock().lock();
+                try {
+                    columns = loaded;
+                    version = loadedVersion;
+                    stale = false;
+                    heldBack.clear();
+                    pending.forEach(queued -> holdBack(queued.version(), queued.deltas()));
+                    catchUp();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                log.info("Loaded donation analytics snapshot for year {} at version {}: {} rows in {} ms",
+                        year, loadedVersion, loaded.size, (System.nanoTime() - started) / 1_000_000);
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    pending.clear();
+                    loading = false;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+
+        void apply(long deltaVersion, List<Delta> deltas) {
+            lock.writeLock().lock();
+            try {
+                if (loading) {
+                    pending.add(new VersionedDeltas(deltaVersion, deltas));
+                }
+                if (columns != null && !stale) {
+                    holdBack(deltaVersion, deltas);
+                    catchUp();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void holdBack(long deltaVersion, List<Delta> deltas) {
+            // Versions already reflected by the load are skipped
+            if (deltaVersion > version) {
+                heldBack.put(deltaVersion, deltas);
+            }
+        }
+
+        /**
+         * Apply held-back writes while they follow on from the current version
+         */
+        private void catchUp() {
+            while (!stale && !heldBack.isEmpty() && heldBack.firstKey() == version + 1) {
+                for (Delta delta : heldBack.pollFirstEntry().getValue()) {
+                    if (!columns.apply(delta)) {
+                        stale = true;
+                        break;
+                    }
+                }
+                version++;
+            }
+            if (stale || heldBack.size() > MAX_HELD_BACK) {
+                heldBack.clear();
+                stale = true;
+            }
+            advanced.signalAll();
+        }
+
+        Aggregate aggregate(Query query) {
+            lock.readLock().lock();
+            try {
+                return columns.aggregate(query);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * The column arrays of one year, dense: a removed row is replaced by the last one
+     */
+    private static final class Columns {
+
+        private final int yearStartDay;
+        private final byte[] monthOfDayOfYear;
+        private final Dictionary donationTypes = new Dictionary();
+        private final Dictionary collectors = new Dictionary();
+        private final IdSlots slots = new IdSlots();
+        // Ids deleted since the load, so a late insert or edit of one is not revived
+        private final Set<Long> removed = new HashSet<>();
+
+        private int size;
+        private long[] ids = new long[1024];
+        private int[] days = new int[1024];
+        private long[] paise = new long[1024];
+        private int[] typeCodes = new int[1024];
+        private int[] collectorCodes = new int[1024];
+
+        Columns(int year) {
+            LocalDate start = LocalDate.of(year, 1, 1);
+            yearStartDay = (int) start.toEpochDay();
+            monthOfDayOfYear = new byte[start.lengthOfYear()];
+            for (int day = 0; day < monthOfDayOfYear.length; day++) {
+                monthOfDayOfYear[day] = (byte) (start.plusDays(day).getMonthValue() - 1);
+            }
+        }
+
+        /**
+         * Apply a write, returning false if the columns do not hold what it
+         * changed and so can no longer be brought up to date by deltas. Writes
+         * the columns already reflect, because the load read them before
+         * their version was bumped, are skipped.
+         */
+        boolean apply(Delta delta) {
+            if (delta instanceof Insert insert) {
+                if (slots.get(insert.id()) < 0 && !removed.contains(insert.id())) {
+                    insert(insert.id(), insert.epochDay(), insert.paise(), insert.donationType(), insert.createdBy());
+                }
+                return true;
+            }
+            if (delta instanceof Update update) {
+                int row = slots.get(update.id());
+                if (row < 0) {
+                    // Deleted by a write whose version came first, or not seen yet
+                    return removed.contains(update.id());
+                }
+                if (matches(row, update.paise(), update.donationType())) {
+                    return true;
+                }
+                if (!matches(row, update.oldPaise(), update.oldType())) {
+                    return false;
+                }
+                paise[row] = update.paise();
+                typeCodes[row] = donationTypes.code(update.donationType());
+                return true;
+            }
+            Remove remove = (Remove) delta;
+            remove(remove.id());
+            removed.add(remove.id());
+            return true;
+        }
+
+        private boolean matches(int row, long amountPaise, String donationType) {
+            return paise[row] == amountPaise && typeCodes[row] == donationTypes.find(donationType);
+        }
+
+        void insert(long id, long epochDay, long amountPaise, String donationType, String createdBy) {
+            if (size == ids.length) {
+                grow();
+            }
+            int row = size++;
+            ids[row] = id;
+            slots.put(id, row);
+            days[row] = (int) epochDay;
+            paise[row] = amountPaise;
+            typeCodes[row] = donationTypes.code(donationType);
+            collectorCodes[row] = collectors.code(createdBy);
+        }
+
+        void remove(long id) {
+            int row = slots.remove(id);
+            if (row < 0) {
+                return;
+            }
+            int last = --size;
+            if (row != last) {
+                ids[row] = ids[last];
+                days[row] = days[last];
+                paise[row] = paise[last];
+                typeCodes[row] = typeCodes[last];
+                collectorCodes[row] = collectorCodes[last];
+                slots.put(ids[row], row);
+            }
+        }
+
+        private void grow() {
+            int capacity = ids.length + (ids.length >> 1);
+            ids = Arrays.copyOf(ids, capacity);
+            days = Arrays.copyOf(days, capacity);
+            paise = Arrays.copyOf(paise, capacity);
+            typeCodes = Arrays.copyOf(typeCodes, capacity);
+            collectorCodes = Arrays.copyOf(collectorCodes, capacity);
+        }
+
+        private int month(int epochDay) {
+            int dayOfYear = epochDay - yearStartDay;
+            if (dayOfYear >= 0 && dayOfYear < monthOfDayOfYear.length) {
+                return monthOfDayOfYear[dayOfYear];
+            }
+            return LocalDate.ofEpochDay(epochDay).getMonthValue() - 1;
+        }
+
+        Aggregate aggregate(Query query) {
+            int fromDay = query.from() != null ? (int) query.from().toEpochDay() : Integer.MIN_VALUE;
+            int toDay = query.to() != null ? (int) query.to().toEpochDay() : Integer.MAX_VALUE;
+            int typeFilter = query.donationType() != null ? donationTypes.find(query.donationType()) : -1;
+            int collectorFilter = query.createdBy() != null ? collectors.find(query.createdBy()) : -1;
+            if ((query.donationType() != null && typeFilter < 0) || (query.createdBy() != null && collectorFilter < 0)) {
+                return new Aggregate(0, BigDecimal.ZERO.setScale(2), List.of());
+            }
+
+            int months = query.byMonth() ? 12 : 1;
+            int types = query.byType() ? Math.max(1, donationTypes.size()) : 1;
+            int people = query.byCollector() ? Math.max(1, collectors.size()) : 1;
+            if ((long) months * types * people > MAX_CELLS) {
+                throw new IllegalArgumentException("Too many groups; filter or group by fewer dimensions");
+            }
+            long[] counts = new long[months * types * people];
+            long[] sums = new long[counts.length];
+
+            for (int row = 0; row < size; row++) {
+                int day = days[row];
+                if (day < fromDay || day > toDay
+                        || (typeFilter >= 0 && typeCodes[row] != typeFilter)
+                        || (collectorFilter >= 0 && collectorCodes[row] != collectorFilter)) {
+                    continue;
+                }
+                int cell = ((query.byMonth() ? month(day) : 0) * types
+                        + (query.byType() ? typeCodes[row] : 0)) * people
+                        + (query.byCollector() ? collectorCodes[row] : 0);
+                counts[cell]++;
+                sums[cell] += paise[row];
+            }
+
+            long count = 0;
+            long total = 0;
+            List<Group> groups = new ArrayList<>();
+            for (int cell = 0; cell < counts.length; cell++) {
+                if (counts[cell] == 0) {
+                    continue;
+                }
+                count += counts[cell];
+                total += sums[cell];
+                groups.add(new Group(
+                        query.byMonth() ? cell / (types * people) + 1 : null,
+                        query.byType() ? donationTypes.value(cell / people % types) : null,
+                        query.byCollector() ? collectors.value(cell % people) : null,
+                        counts[cell], BigDecimal.valueOf(sums[cell], 2)));
+            }
+            return new Aggregate(count, BigDecimal.valueOf(total, 2), groups);
+        }
+    }
+
+    /**
+     * Codes for the distinct values of a text column, in order of first appearance
+     */
+    private static final class Dictionary {
+
+        private final List<String> values = new ArrayList<>();
+        private final Map<String, Integer> codes = new HashMap<>();
+
+        int code(String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                values.add(value);
+                codes.put(value, code);
+            }
+            return code;
+        }
+
+        int find(String value) {
+            return codes.getOrDefault(value, -1);
+        }
+
+        String value(int code) {
+            return values.get(code);
+        }
+
+        int size() {
+            return values.size();
+        }
+    }
+
+    /**
+     * Open-addressing map from donation id to row, so a snapshot of millions
+     * of rows does not need a boxed entry per row. Ids are positive; 0 marks
+     * a free slot.
+     */
+    private static final class IdSlots {
+
+        private long[] keys = new long[2048];
+        private int[] rows = new int[2048];
+        private int size;
+
+        int get(long id) {
+            int mask = keys.length - 1;
+            for (int i = slot(id, mask); keys[i] != 0; i = (i + 1) & mask) {
+                if (keys[i] == id) {
+                    return rows[i];
+                }
+            }
+            return -1;
+        }
+
+        void put(long id, int row) {
+            if ((size + 1) * 2 > keys.length) {
+                resize();
+            }
+            int mask = keys.length - 1;
+            int i = slot(id, mask);
+            while (keys[i] != 0 && keys[i] != id) {
+                i = (i + 1) & mask;
+            }
+            if (keys[i] == 0) {
+                keys[i] = id;
+                size++;
+            }
+            rows[i] = row;
+        }
+
+        /**
+         * Remove an id, returning its row or -1. Later entries of the probe
+         * run are shifted back so lookups need no tombstones.
+         */
+        int remove(long id) {
+            int mask = keys.length - 1;
+            int i = slot(id, mask);
+            while (keys[i] != id) {
+                if (keys[i] == 0) {
+                    return -1;
+                }
+                i = (i + 1) & mask;
+            }
+            int row = rows[i];
+            int gap = i;
+            for (int j = (gap + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+                int home = slot(keys[j], mask);
+                // Move j into the gap unless its home lies cyclically in (gap, j]
+                boolean stays = gap <= j ? gap < home && home <= j : gap < home || home <= j;
+                if (!stays) {
+                    keys[gap] = keys[j];
+                    rows[gap] = rows[j];
+                    gap = j;
+                }
+            }
+            keys[gap] = 0;
+            size--;
+            return row;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            int[] oldRows = rows;
+            keys = new long[oldKeys.length * 2];
+            rows = new int[oldKeys.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    put(oldKeys[i], oldRows[i]);
+                }
+            }
+        }
+
+        private static int slot(long id, int mask) {
+            return Long.hashCode(id * 0x9E3779B97F4A7C15L) & mask;
+        }
+    }
+}
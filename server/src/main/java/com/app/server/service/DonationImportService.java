@@ -0,0 +1,418 @@
+package com.app.server.service;
+
+import com.app.server.dto.DonationImportResponse;
+import com.app.server.dto.DonationRequest;
+import com.app.server.model.Donation;
+import com.app.server.repository.DonationImportCheckpointRepository;
+import com.app.server.repository.DonationRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Imports digitised paper receipt books from CSV. The file is parsed as a
+ * stream and cut into chunks; chunks are validated in parallel with the same
+ * rules as DonationRequest, while a single committer inserts them in file
+ * order, routed to the year table of each receipt date. Each chunk commits
+ * together with the import's checkpoint, so a stopped import resumes after
+ * the last committed row when run again with the same import ID. Rejected
+ * rows are appended to a per-import error file with their line number.
+ * At most a few chunks are held in memory regardless of the file size.
+ */
+@Service
+@Slf4j
+public class DonationImportService {
+
+    private static final Pattern IMPORT_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+    private static final List<DateTimeFormatter> DATE_FORMATS = List.of(
+            DateTimeFormatter.ISO_LOCAL_DATE,
+            DateTimeFormatter.ofPattern("d/M/uuuu"),
+            DateTimeFormatter.ofPattern("d-M-uuuu"),
+            DateTimeFormatter.ofPattern("d.M.uuuu"));
+
+    private final DonationRepository donationRepository;
+    private final DonationTableService donationTableService;
+    private final DonationImportCheckpointRepository checkpointRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ExecutorService validationExecutor;
+    private final int chunkSize;
+    private final int maxChunksInFlight;
+    private final Path errorDirectory;
+
+    // Imports running in this JVM; the same import ID may not run twice at once
+    private final Set<String> runningImports = ConcurrentHashMap.newKeySet();
+
+    public DonationImportService(DonationRepository donationRepository,
+                                 DonationTableService donationTableService,
+                                 DonationImportCheckpointRepository checkpointRepository,
+                                 TransactionTemplate transactionTemplate,
+                                 Validator validator,
+                                 @Value("${app.donations.import.chunk-size:1000}") int chunkSize,
+                                 @Value("${app.donations.import.validation-threads:0}") int validationThreads,
+                                 @Value("${app.donations.import.error-dir:import-errors}") String errorDirectory) {
+        this.donationRepository = donationRepository;
+        this.donationTableService = donationTableService;
+        this.checkpointRepository = checkpointRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+        this.errorDirectory = Path.of(errorDirectory);
+
+        int threads = validationThreads > 0 ? validationThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.maxChunksInFlight = threads * 2;
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "donation-import-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.validationExecutor = Executors.newFixedThreadPool(threads, threadFactory);
+    }
+
+    /**
+     * Import a CSV stream under the given import ID. Rows an earlier run with
+     * the same ID already committed are skipped. Rows without a created_by
+     * column value are attributed to defaultCreatedBy.
+     */
+    public DonationImportResponse importCsv(String importId, InputStream in, String defaultCreatedBy) {
+        if (importId == null || !IMPORT_ID.matcher(importId).matches()) {
+            return DonationImportResponse.failure("Invalid import ID. Use 1-64 letters, digits, '.', '_' or '-'");
+        }
+        if (!runningImports.add(importId)) {
+            return DonationImportResponse.failure("Import " + importId + " is already running");
+        }
+        try {
+            return runImport(importId, in, defaultCreatedBy);
+        } finally {
+            runningImports.remove(importId);
+        }
+    }
+
+    /**
+     * Path of an import's error file, if it has one
+     */
+    public Optional<Path> findErrorFile(String importId) {
+        if (importId == null || !IMPORT_ID.matcher(importId).matches()) {
+            return Optional.empty();
+        }
+        Path errorFile = errorFile(importId);
+        return Files.exists(errorFile) ? Optional.of(errorFile) : Optional.empty();
+    }
+
+    private DonationImportResponse runImport(String importId, InputStream in, String defaultCreatedBy) {
+        long start = System.nanoTime();
+        DonationImportCheckpointRepository.Checkpoint checkpoint = checkpointRepository.start(importId, defaultCreatedBy);
+        Progress progress = new Progress(checkpoint);
+        Path errorFile = errorFile(importId);
+        Deque<Future<Chunk>> inFlight = new ArrayDeque<>();
+
+        try (CsvReader csv = new CsvReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            List<String> header = csv.next();
+            if (header == null) {
+                return DonationImportResponse.failure("The file is empty");
+            }
+            Map<Column, Integer> columns = Column.map(header);
+
+            // A fresh import starts a new error file; a resumed one appends to it
+            Files.createDirectories(errorDirectory);
+            StandardOpenOption mode = checkpoint.rowsRead() > 0
+                    ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING;
+            try (BufferedWriter errors = Files.newBufferedWriter(errorFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode)) {
+                if (Files.size(errorFile) == 0) {
+                    errors.write("line,error," + String.join(",", header.stream().map(CsvReader::escape).toList()));
+                    errors.newLine();
+                }
+
+                long toSkip = checkpoint.rowsRead();
+                List<Row> rows = new ArrayList<>(chunkSize);
+                List<String> record;
+                while ((record = csv.next()) != null) {
+                    if (toSkip > 0) {
+                        toSkip--;
+                        continue;
+                    }
+                    rows.add(new Row(csv.recordLine(), record));
+                    if (rows.size() == chunkSize) {
+                        submit(inFlight, rows, columns, defaultCreatedBy);
+                        rows = new ArrayList<>(chunkSize);
+                        // Bound memory: commit the oldest chunk before reading further ahead
+                        if (inFlight.size() >= maxChunksInFlight) {
+                            commit(importId, inFlight.poll().get(), errors, progress);
+                        }
+                    }
+                }
+                if (!rows.isEmpty()) {
+                    submit(inFlight, rows, columns, defaultCreatedBy);
+                }
+                while (!inFlight.isEmpty()) {
+                    commit(importId, inFlight.poll().get(), errors, progress);
+                }
+            }
+
+            checkpointRepository.complete(importId);
+            long durationMs = (System.nanoTime() - start) / 1_000_000;
+            log.info("Import {} completed: {} rows read, {} imported, {} failed in {} ms",
+                    importId, progress.rowsRead, progress.imported, progress.failed, durationMs);
+            return DonationImportResponse.success(importId, progress.rowsRead, progress.imported, progress.failed,
+                    checkpoint.rowsRead(), errorFile.toString(), durationMs);
+
+        } catch (IllegalArgumentException e) {
+            return DonationImportResponse.failure(e.getMessage());
+        } catch (Exception e) {
+            inFlight.forEach(future -> future.cancel(true));
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            log.error("Import {} stopped after {} rows: {}", importId, progress.rowsRead, cause.getMessage());
+            return DonationImportResponse.interrupted("Import stopped after " + progress.rowsRead
+                            + " rows: " + cause.getMessage() + ". Run it again with the same import ID to resume",
+                    importId, progress.rowsRead, progress.imported, progress.failed, checkpoint.rowsRead(),
+                    errorFile.toString(), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    private void submit(Deque<Future<Chunk>> inFlight, List<Row> rows, Map<Column, Integer> columns,
+                        String defaultCreatedBy) {
+        LocalDate today = LocalDate.now();
+        inFlight.add(validationExecutor.submit(() -> validate(rows, columns, defaultCreatedBy, today)));
+    }
+
+    /**
+     * Turn a chunk of raw rows into donations grouped by year, and rejections
+     */
+    private Chunk validate(List<Row> rows, Map<Column, Integer> columns, String defaultCreatedBy, LocalDate today) {
+        Map<Integer, List<Donation>> donationsByYear = new TreeMap<>();
+        List<Rejection> rejections = new ArrayList<>();
+        for (Row row : rows) {
+            if (row.values().size() == 1 && row.values().get(0).isBlank()) {
+                continue;
+            }
+            try {
+                Donation donation = toDonation(row, columns, defaultCreatedBy, today);
+                donationsByYear.computeIfAbsent(donation.getCreatedDate().getYear(), year -> new ArrayList<>())
+                        .add(donation);
+            } catch (IllegalArgumentException e) {
+                rejections.add(new Rejection(row, e.getMessage()));
+            }
+        }
+        return new Chunk(rows.size(), donationsByYear, rejections);
+    }
+
+    private Donation toDonation(Row row, Map<Column, Integer> columns, String defaultCreatedBy, LocalDate today) {
+        LocalDate receiptDate = parseDate(row.value(columns, Column.RECEIPT_DATE));
+        if (receiptDate.getYear() < 2000 || receiptDate.isAfter(today)) {
+            throw new IllegalArgumentException("Invalid receipt date. Must be between 2000-01-01 and today");
+        }
+
+        DonationRequest request = new DonationRequest(
+                row.value(columns, Column.DONOR_NAME),
+                row.value(columns, Column.DONOR_ADDRESS),
+                row.value(columns, Column.DONOR_PHONE),
+                parseAmount(row.value(columns, Column.DONATION_AMOUNT)),
+                row.value(columns, Column.DONATION_TYPE),
+                row.value(columns, Column.NOTES));
+        Set<ConstraintViolation<DonationRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.iterator().next().getMessage());
+        }
+        if (!request.isValidPhoneFormat()) {
+            throw new IllegalArgumentException("Invalid phone number format");
+        }
+
+        String createdBy = row.value(columns, Column.CREATED_BY);
+        if (createdBy == null) {
+            createdBy = defaultCreatedBy;
+        } else if (createdBy.length() > 100) {
+            throw new IllegalArgumentException("Created by must not exceed 100 characters");
+        }
+
+        Donation donation = new Donation(
+                request.getDonorName().trim(),
+                request.getDonorAddress().trim(),
+                request.getCleanPhoneNumber(),
+                request.getDonationAmount(),
+                request.getDonationType() != null ? request.getDonationType().trim() : "Cash",
+                request.getNotes() != null ? request.getNotes().trim() : null,
+                createdBy);
+        donation.setCreatedDate(receiptDate);
+        return donation;
+    }
+
+    private static LocalDate parseDate(String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Receipt date is required");
+        }
+        for (DateTimeFormatter format : DATE_FORMATS) {
+            try {
+                return LocalDate.parse(value, format);
+            } catch (DateTimeParseException e) {
+                // Try the next format
+            }
+        }
+        throw new IllegalArgumentException("Invalid receipt date '" + value + "'. Use yyyy-MM-dd or dd/MM/yyyy");
+    }
+
+    private static BigDecimal parseAmount(String value) {
+        if (value == null) {
+            return null;
+        }
+        // Paper books write amounts as "₹ 1,001" or "1001/-"
+        String digits = value.replace("₹", "").replace("Rs.", "").replace(",", "").replace("/-", "").trim();
+        try {
+            return new BigDecimal(digits);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid donation amount '" + value + "'");
+        }
+    }
+
+    /**
+     * Write a validated chunk's rejections, then insert its donations and
+     * advance the checkpoint in one transaction
+     */
+    private void commit(String importId, Chunk chunk, BufferedWriter errors, Progress progress) throws IOException {
+        for (Integer year : chunk.donationsByYear().keySet()) {
+            donationTableService.ensureTableExistsForYear(year);
+        }
+
+        // Written before the commit: a crash in between repeats these lines on resume instead of losing them
+        for (Rejection rejection : chunk.rejections()) {
+            errors.write(rejection.row().line() + "," + CsvReader.escape(rejection.error()) + ","
+                    + String.join(",", rejection.row().values().stream().map(CsvReader::escape).toList()));
+            errors.newLine();
+        }
+        errors.flush();
+
+        int imported = chunk.donationsByYear().values().stream().mapToInt(List::size).sum();
+        transactionTemplate.executeWithoutResult(status -> {
+            chunk.donationsByYear().forEach((year, donations) -> donationRepository.saveBatch(donations, year));
+            checkpointRepository.advance(importId, chunk.rows(), imported, chunk.rejections().size());
+        });
+
+        progress.rowsRead += chunk.rows();
+        progress.imported += imported;
+        progress.failed += chunk.rejections().size();
+    }
+
+    private Path errorFile(String importId) {
+        return errorDirectory.resolve(importId + "-errors.csv");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        validationExecutor.shutdownNow();
+    }
+
+    /**
+     * CSV columns understood by the import, matched against the header
+     * ignoring case, spaces and underscores
+     */
+    private enum Column {
+        RECEIPT_DATE(true, "receiptdate", "date", "createddate", "donationdate"),
+        DONOR_NAME(true, "donorname", "name"),
+        DONOR_ADDRESS(true, "donoraddress", "address"),
+        DONOR_PHONE(true, "donorphone", "phone", "mobile"),
+        DONATION_AMOUNT(true, "donationamount", "amount"),
+        DONATION_TYPE(false, "donationtype", "type"),
+        NOTES(false, "notes", "note", "remarks"),
+        CREATED_BY(false, "createdby", "collector");
+
+        private final boolean required;
+        private final List<String> names;
+
+        Column(boolean required, String... names) {
+            this.required = required;
+            this.names = List.of(names);
+        }
+
+        static Map<Column, Integer> map(List<String> header) {
+            Map<Column, Integer> columns = new EnumMap<>(Column.class);
+            for (int i = 0; i < header.size(); i++) {
+                String name = header.get(i).toLowerCase(Locale.ROOT).replaceAll("[^a-z]", "");
+                for (Column column : values()) {
+                    if (column.names.contains(name)) {
+                        columns.putIfAbsent(column, i);
+                    }
+                }
+            }
+            List<String> missing = new ArrayList<>();
+            for (Column column : values()) {
+                if (column.required && !columns.containsKey(column)) {
+                    missing.add(column.names.get(0));
+                }
+            }
+            if (!missing.isEmpty()) {
+                throw new IllegalArgumentException("Missing required CSV columns: " + String.join(", ", missing));
+            }
+            return columns;
+        }
+    }
+
+    private record Row(long line, List<String> values) {
+
+        /**
+         * Trimmed value of a column, or null when absent or blank
+         */
+        String value(Map<Column, Integer> columns, Column column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= values.size()) {
+                return null;
+            }
+            String value = values.get(index).trim();
+            return value.isEmpty() ? null : value;
+        }
+    }
+
+    private record Rejection(Row row, String error) {}
+
+    private record Chunk(int rows, Map<Integer, List<Donation>> donationsByYear, List<Rejection> rejections) {}
+
+    private static final class Progress {
+        long rowsRead;
+        long imported;
+        long failed;
+
+        Progress(DonationImportCheckpointRepository.Checkpoint checkpoint) {
+            this.rowsRead = checkpoint.rowsRead();
+            this.imported = checkpoint.imported();
+            this.failed = checkpoint.failed();
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.app.server.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes a donation list response straight from DonationRepository result
+ * sets (ROW_COLUMNS order) to a JsonGenerator, without building Donation or
+ * DonationData objects per row. Rows match DonationData's JSON except that
+ * canEdit/canDelete, the same for every row, are written once on the list.
+ *
+ * Dates are formatted as Jackson formats LocalDate/LocalDateTime (ISO). A
+ * year listing covers a few hundred distinct days, so each day's text is
+ * formatted once and reused; the time of day is formatted into a reused buffer.
+ *
+ * One writer per response; not thread-safe.
+ */
+public class DonationJsonWriter implements RowCallbackHandler {
+
+    private static final SerializableString SUCCESS = new SerializedString("success");
+    private static final SerializableString MESSAGE = new SerializedString("message");
+    private static final SerializableString DATA = new SerializedString("data");
+    private static final SerializableString DONATIONS = new SerializedString("donations");
+    private static final SerializableString TOTAL_COUNT = new SerializedString("totalCount");
+    private static final SerializableString YEAR = new SerializedString("year");
+    private static final SerializableString CAN_EDIT = new SerializedString("canEdit");
+    private static final SerializableString CAN_DELETE = new SerializedString("canDelete");
+
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString DONOR_NAME = new SerializedString("donorName");
+    private static final SerializableString DONOR_ADDRESS = new SerializedString("donorAddress");
+    private static final SerializableString DONOR_PHONE = new SerializedString("donorPhone");
+    private static final SerializableString DONATION_AMOUNT = new SerializedString("donationAmount");
+    private static final SerializableString DONATION_TYPE = new SerializedString("donationType");
+    private static final SerializableString NOTES = new SerializedString("notes");
+    private static final SerializableString CREATED_AT = new SerializedString("createdAt");
+    private static final SerializableString CREATED_DATE = new SerializedString("createdDate");
+    private static final SerializableString CREATED_BY = new SerializedString("createdBy");
+    private static final SerializableString UPDATED_AT = new SerializedString("updatedAt");
+    private static final SerializableString UPDATED_BY = new SerializedString("updatedBy");
+
+    // "yyyy-MM-ddTHH:mm:ss.nnnnnnnnn"
+    private static final int DATE_LENGTH = 10;
+    private static final int MAX_DATE_TIME_LENGTH = 29;
+    private static final int MAX_CACHED_DATES = 1024;
+
+    private final JsonGenerator generator;
+    private final char[] dateTime = new char[MAX_DATE_TIME_LENGTH];
+    private final Map<LocalDate, String> dateTexts = new HashMap<>();
+    private int rowCount;
+
+    public DonationJsonWriter(JsonGenerator generator) {
+        this.generator = generator;
+    }
+
+    /**
+     * Open the response object and its donations array
+     */
+    public void startList(String message) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(SUCCESS);
+        generator.writeBoolean(true);
+        generator.writeFieldName(MESSAGE);
+        generator.writeString(message);
+        generator.writeFieldName(DATA);
+        generator.writeNull();
+        generator.writeFieldName(DONATIONS);
+        generator.writeStartArray();
+    }
+
+    /**
+     * Close the donations array and the response, with the row count and the
+     * permissions that apply to every row
+     */
+    public void endList(String year, boolean canEdit, boolean canDelete) throws IOException {
+        generator.writeEndArray();
+        generator.writeFieldName(TOTAL_COUNT);
+        generator.writeNumber(rowCount);
+        generator.writeFieldName(YEAR);
+        generator.writeString(year);
+        generator.writeFieldName(CAN_EDIT);
+        generator.writeBoolean(canEdit);
+        generator.writeFieldName(CAN_DELETE);
+        generator.writeBoolean(canDelete);
+        generator.writeEndObject();
+    }
+
+    /**
+     * Rows written so far
+     */
+    public int rowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public void processRow(ResultSet rs) throws SQLException {
+        try {
+            writeRow(rs);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        rowCount++;
+    }
+
+    // Column positions follow DonationRepository.ROW_COLUMNS
+    private void writeRow(ResultSet rs) throws SQLException, IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(ID);
+        generator.writeNumber(rs.getLong(1));
+        writeString(DONOR_NAME, rs.getString(2));
+        writeString(DONOR_ADDRESS, rs.getString(3));
+        writeString(DONOR_PHONE, rs.getString(4));
+
+        generator.writeFieldName(DONATION_AMOUNT);
+        BigDecimal amount = rs.getBigDecimal(5);
+        if (amount != null) {
+            generator.writeNumber(amount);
+        } else {
+            generator.writeNull();
+        }
+
+        writeString(DONATION_TYPE, rs.getString(6));
+        writeString(NOTES, rs.getString(7));
+        writeDateTime(CREATED_AT, rs.getObject(8, LocalDateTime.class));
+
+        generator.writeFieldName(CREATED_DATE);
+        LocalDate createdDate = rs.getObject(9, LocalDate.class);
+        if (createdDate != null) {
+            generator.writeString(dateText(createdDate));
+        } else {
+            generator.writeNull();
+        }
+
+        writeString(CREATED_BY, rs.getString(10));
+        writeDateTime(UPDATED_AT, rs.getObject(11, LocalDateTime.class));
+        writeString(UPDATED_BY, rs.getString(12));
+        generator.writeEndObject();
+    }
+
+    private void writeString(SerializableString name, String value) throws IOException {
+        generator.writeFieldName(name);
+        generator.writeString(value);
+    }
+
+    private void writeDateTime(SerializableString name, LocalDateTime value) throws IOException {
+        generator.writeFieldName(name);
+        if (value == null) {
+            generator.writeNull();
+            return;
+        }
+
+        dateText(value.toLocalDate()).getChars(0, DATE_LENGTH, dateTime, 0);
+        int length = DATE_LENGTH;
+        dateTime[length++] = 'T';
+        length = twoDigits(value.getHour(), length);
+        dateTime[length++] = ':';
+        length = twoDigits(value.getMinute(), length);
+        dateTime[length++] = ':';
+        length = twoDigits(value.getSecond(), length);
+
+        // Fraction as DateTimeFormatter.ISO_LOCAL_TIME writes it: trailing zeros dropped
+        int nano = value.getNano();
+        if (nano > 0) {
+            dateTime[length++] = '.';
+            int digits = 9;
+            while (nano % 10 == 0) {
+                nano /= 10;
+                digits--;
+            }
+            for (int i = length + digits - 1; i >= length; i--) {
+                dateTime[i] = (char) ('0' + nano % 10);
+                nano /= 10;
+            }
+            length += digits;
+        }
+        generator.writeString(dateTime, 0, length);
+    }
+
+    private int twoDigits(int value, int at) {
+        dateTime[at] = (char) ('0' + value / 10);
+        dateTime[at + 1] = (char) ('0' + value % 10);
+        return at + 2;
+    }
+
+    private String dateText(LocalDate date) {
+        String text = dateTexts.get(date);
+        if (text == null) {
+            if (dateTexts.size() >= MAX_CACHED_DATES) {
+                dateTexts.clear();
+            }
+            text = date.toString();
+            dateTexts.put(date, text);
+        }
+        return text;
+    }
+}
@@ -1,20 +1,55 @@
 package com.app.server.service;
 
+import com.app.server.dto.DonationAnalyticsResponse;
+import com.app.server.dto.DonationBatchRequest;
+import com.app.server.dto.DonationBatchResponse;
+import com.app.server.dto.DonationChangesResponse;
 import com.app.server.dto.DonationRequest;
 import com.app.server.dto.DonationResponse;
+import com.app.server.exception.IngestionBusyException;
 import com.app.server.model.Donation;
 import com.app.server.model.User;
+import com.app.server.repository.DonationChangeCursor;
+import com.app.server.repository.DonationCursor;
+import com.app.server.repository.DonationIdempotencyRepository;
 import com.app.server.repository.DonationRepository;
+import com.app.server.repository.DonationTombstoneRepository;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
 
 @Service
 @RequiredArgsConstructor
@@ -25,10 +60,39 @@ public class DonationService {
     private final DonationRepository donationRepository;
     private final DonationTableService donationTableService;
     private final JwtService jwtService;
+    private final ObjectMapper objectMapper;
+    private final DonationYearFanOut donationYearFanOut;
+    private final DonationTombstoneRepository donationTombstoneRepository;
+    private final DonationIdempotencyRepository donationIdempotencyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final DonationWriteBehindWriter donationWriteBehindWriter;
+    private final ClosedYearResponseCache closedYearResponseCache;
+    private final DonationAnalyticsCache donationAnalyticsCache;
+
+    @Value("${app.donations.export-fetch-size:500}")
+    private int exportFetchSize;
+
+    @Value("${app.donations.sync-lag:PT15S}")
+    private Duration syncLag;
+
+    @Value("${app.donations.sync-max-changes:1000}")
+    private int syncMaxChanges;
+
+    @Value("${app.donations.tombstone-retention:P90D}")
+    private Duration tombstoneRetention;
+
+    @Value("${app.donations.write-behind.commit-timeout-ms:5000}")
+    private long writeBehindCommitTimeoutMs;
 
     /**
-     * Create a new donation entry
+     * Create a new donation entry.
+     * Runs without a surrounding transaction so that callers waiting on a
+     * first-of-year table creation don't each pin a pooled connection.
+     * With write-behind enabled the caller waits for the group commit that
+     * includes its donation instead of committing on its own.
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public DonationResponse createDonation(DonationRequest request) {
         try {
             // Get current user information
@@ -57,8 +121,18 @@ public class DonationService {
                 currentUser
             );
 
-            // Save donation
-            Donation savedDonation = donationRepository.save(donation, currentYear);
+            // Save donation, either directly or through the next write-behind group commit
+            Donation savedDonation;
+            if (donationWriteBehindWriter.isEnabled()) {
+                try {
+                    savedDonation = donationWriteBehindWriter.submitAndWait(donation, currentYear,
+                            writeBehindCommitTimeoutMs);
+                } catch (ExecutionException e) {
+                    throw new RuntimeException("Failed to save donation", e.getCause());
+                }
+            } else {
+                savedDonation = donationRepository.save(donation, currentYear);
+            }
             
             // Create response data
             DonationResponse.DonationData responseData = new DonationResponse.DonationData(savedDonation);
@@ -68,12 +142,182 @@ public class DonationService {
             
             return DonationResponse.success("Donation created successfully", responseData);
             
+        } catch (IngestionBusyException e) {
+            // Surfaced as 503 so clients back off instead of treating it as a bad request
+            throw e;
         } catch (Exception e) {
             log.error("Error creating donation: {}", e.getMessage());
             return DonationResponse.failure("Failed to create donation: " + e.getMessage());
         }
     }
 
+    /**
+     * Create many donations uploaded from an offline queue.
+     * Each receipt carries a client idempotency key; keys already used by the
+     * current user are reported as duplicates instead of being inserted again.
+     * New receipts are inserted with one JDBC batch and one transaction per year,
+     * so a failing year does not roll back the others.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public DonationBatchResponse createDonationsBatch(DonationBatchRequest request) {
+        try {
+            String currentUser = getCurrentUserFullName();
+            if (currentUser == null) {
+                return DonationBatchResponse.failure("Authentication required");
+            }
+
+            List<DonationBatchRequest.Item> items = request.getItems();
+            DonationBatchResponse.ItemResult[] results = new DonationBatchResponse.ItemResult[items.size()];
+            Map<String, Integer> firstIndexByKey = new HashMap<>();
+            Map<Integer, List<Integer>> indexesByYear = new TreeMap<>();
+            Donation[] donations = new Donation[items.size()];
+            LocalDate today = LocalDate.now();
+
+            for (int i = 0; i < items.size(); i++) {
+                DonationBatchRequest.Item item = items.get(i);
+                String error = validateBatchItem(item, today);
+                if (error != null) {
+                    results[i] = DonationBatchResponse.ItemResult.failed(item != null ? item.getIdempotencyKey() : null, error);
+                    continue;
+                }
+                // A key repeated within the batch resolves to its first occurrence below
+                if (firstIndexByKey.putIfAbsent(item.getIdempotencyKey(), i) != null) {
+                    continue;
+                }
+
+                DonationRequest donationRequest = item.getDonation();
+                Donation donation = new Donation(
+                    donationRequest.getDonorName().trim(),
+                    donationRequest.getDonorAddress().trim(),
+                    donationRequest.getCleanPhoneNumber(),
+                    donationRequest.getDonationAmount(),
+                    donationRequest.getDonationType() != null ? donationRequest.getDonationType().trim() : "Cash",
+                    donationRequest.getNotes() != null ? donationRequest.getNotes().trim() : null,
+                    currentUser
+                );
+                if (item.getReceiptDate() != null) {
+                    donation.setCreatedDate(item.getReceiptDate());
+                }
+                donations[i] = donation;
+                indexesByYear.computeIfAbsent(donation.getCreatedDate().getYear(), year -> new ArrayList<>()).add(i);
+            }
+
+            Map<String, DonationIdempotencyRepository.StoredKey> existing =
+                    donationIdempotencyRepository.findExisting(currentUser, firstIndexByKey.keySet());
+
+            for (Map.Entry<Integer, List<Integer>> entry : indexesByYear.entrySet()) {
+                int year = entry.getKey();
+                List<Integer> pending = entry.getValue().stream()
+                        .filter(i -> !existing.containsKey(items.get(i).getIdempotencyKey()))
+                        .toList();
+                if (pending.isEmpty()) {
+                    continue;
+                }
+
+                try {
+                    donationTableService.ensureTableExistsForYear(year);
+                    insertBatchForYear(year, pending, items, donations, currentUser, results);
+                } catch (DuplicateKeyException e) {
+                    // A concurrent retry of the same upload claimed some keys first; the rest go in again
+                    Map<String, DonationIdempotencyRepository.StoredKey> claimed = donationIdempotencyRepository
+                            .findExisting(currentUser, pending.stream().map(i -> items.get(i).getIdempotencyKey()).toList());
+                    existing.putAll(claimed);
+                    List<Integer> remaining = pending.stream()
+                            .filter(i -> !claimed.containsKey(items.get(i).getIdempotencyKey()))
+                            .toList();
+                    try {
+                        if (!remaining.isEmpty()) {
+                            insertBatchForYear(year, remaining, items, donations, currentUser, results);
+                        }
+                    } catch (Exception retryError) {
+                        failBatchForYear(year, remaining, items, results, retryError);
+                    }
+                } catch (Exception e) {
+                    failBatchForYear(year, pending, items, results, e);
+                }
+            }
+
+            for (int i = 0; i < items.size(); i++) {
+                if (results[i] != null) {
+                    continue;
+                }
+                String key = items.get(i).getIdempotencyKey();
+                DonationIdempotencyRepository.StoredKey stored = existing.get(key);
+                int first = firstIndexByKey.get(key);
+                if (stored != null) {
+                    results[i] = DonationBatchResponse.ItemResult.duplicate(key, stored.id(), stored.year());
+                } else if (first != i && results[first].getStatus() != DonationBatchResponse.ItemStatus.FAILED) {
+                    results[i] = DonationBatchResponse.ItemResult.duplicate(key, results[first].getId(), results[first].getYear());
+                } else {
+                    results[i] = DonationBatchResponse.ItemResult.failed(key, results[first].getError());
+                }
+            }
+
+            DonationBatchResponse response = DonationBatchResponse.success(List.of(results));
+            log.info("Processed batch of {} donations for user {}: {} created, {} duplicates, {} failed",
+                    items.size(), currentUser, response.getCreated(), response.getDuplicates(), response.getFailed());
+
+            return response;
+
+        } catch (Exception e) {
+            log.error("Error creating donation batch: {}", e.getMessage());
+            return DonationBatchResponse.failure("Failed to create donations: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Insert one year's share of a batch together with its idempotency keys
+     */
+    private void insertBatchForYear(int year, List<Integer> indexes, List<DonationBatchRequest.Item> items,
+                                    Donation[] donations, String currentUser,
+                                    DonationBatchResponse.ItemResult[] results) {
+        List<Donation> toInsert = indexes.stream().map(i -> donations[i]).toList();
+        transactionTemplate.executeWithoutResult(status -> {
+            donationRepository.saveBatch(toInsert, year);
+
+            Map<String, DonationIdempotencyRepository.StoredKey> keys = new LinkedHashMap<>();
+            for (Integer i : indexes) {
+                keys.put(items.get(i).getIdempotencyKey(),
+                        new DonationIdempotencyRepository.StoredKey(year, donations[i].getId()));
+            }
+            donationIdempotencyRepository.saveAll(currentUser, keys);
+        });
+
+        for (Integer i : indexes) {
+            results[i] = DonationBatchResponse.ItemResult.created(items.get(i).getIdempotencyKey(), donations[i].getId(), year);
+        }
+    }
+
+    private void failBatchForYear(int year, List<Integer> indexes, List<DonationBatchRequest.Item> items,
+                                  DonationBatchResponse.ItemResult[] results, Exception e) {
+        log.error("Error inserting batch of {} donations for year {}: {}", indexes.size(), year, e.getMessage());
+        for (Integer i : indexes) {
+            results[i] = DonationBatchResponse.ItemResult.failed(items.get(i).getIdempotencyKey(),
+                    "Failed to create donation: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Validate one uploaded receipt, returning the first problem or null
+     */
+    private String validateBatchItem(DonationBatchRequest.Item item, LocalDate today) {
+        if (item == null) {
+            return "Receipt is required";
+        }
+        Set<ConstraintViolation<DonationBatchRequest.Item>> violations = validator.validate(item);
+        if (!violations.isEmpty()) {
+            return violations.iterator().next().getMessage();
+        }
+        if (!item.getDonation().isValidPhoneFormat()) {
+            return "Invalid phone number format";
+        }
+        LocalDate receiptDate = item.getReceiptDate();
+        if (receiptDate != null && (receiptDate.getYear() < 2000 || receiptDate.isAfter(today))) {
+            return "Invalid receipt date. Must be between 2000-01-01 and today";
+        }
+        return null;
+    }
+
     /**
      * Get donations for a specific year with role-based filtering
      */
@@ -125,9 +369,132 @@ public class DonationService {
     }
 
     /**
-     * Get all donations across all years (ADMIN only)
+     * Get the serialised getDonationsByYear response for a closed year from
+     * the response cache, building it on a miss. Returns null when the
+     * response could not be built; the caller falls back to getDonationsByYear.
+     */
+    @Transactional(readOnly = true)
+    public ClosedYearResponseCache.CachedResponse getCachedDonationsByYear(int year) throws IOException {
+        String currentUser = getCurrentUserFullName();
+        User.Role userRole = getCurrentUserRole();
+        if (currentUser == null || userRole == null) {
+            return null;
+        }
+
+        String view = userRole == User.Role.ADMIN ? null : currentUser;
+        // Failures are not cached
+        return closedYearResponseCache.get(year, view, () -> writeDonationsByYear(year));
+    }
+
+    /**
+     * Write the getDonationsByYear response for a year as JSON straight from
+     * the year table's rows, with canEdit/canDelete given once on the list
+     * instead of on every row, into a byte array for the closed-year cache.
+     * Returns null when the response could not be built; the caller falls
+     * back to getDonationsByYear for the failure.
+     */
+    @Transactional(readOnly = true)
+    public byte[] writeDonationsByYear(int year) {
+        try {
+            ByteArrayBuilder out = new ByteArrayBuilder();
+            if (!writeDonationsByYear(year, objectMapper.getFactory(), out)) {
+                return null;
+            }
+            return out.toByteArray();
+        } catch (Exception e) {
+            log.error("Error writing donations for year {}: {}", year, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * As writeDonationsByYear(year), streamed to the given output as rows are
+     * read, in the format of the given factory (e.g. a SmileFactory for binary
+     * responses). Returns false, having written nothing, without a current
+     * user; errors are rethrown, leaving the output unfinished.
+     */
+    @Transactional(readOnly = true)
+    public boolean writeDonationsByYear(int year, JsonFactory factory, OutputStream out) throws IOException {
+        String currentUser = getCurrentUserFullName();
+        User.Role userRole = getCurrentUserRole();
+        if (currentUser == null || userRole == null) {
+            return false;
+        }
+
+        boolean isAdmin = userRole == User.Role.ADMIN;
+        boolean tableExists = donationTableService.tableExists(year);
+        // Not try-with-resources: closing the generator ends the document, which only a complete listing may do
+        JsonGenerator generator = factory.createGenerator(out).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        DonationJsonWriter writer = new DonationJsonWriter(generator);
+        writer.startList(tableExists ? "Donations retrieved successfully" : "No donations found for year " + year);
+        if (tableExists) {
+            donationRepository.streamRowsByYear(year, isAdmin ? null : currentUser, exportFetchSize, writer);
+        }
+        writer.endList(String.valueOf(year), isAdmin, isAdmin);
+        generator.close();
+
+        log.info("Wrote {} donations for year {} for user {} (role: {})", writer.rowCount(), year, currentUser, userRole);
+        return true;
+    }
+
+    /**
+     * Get one page of donations for a specific year with role-based filtering.
+     * Uses keyset pagination so each page costs the same regardless of depth.
+     */
+    public DonationResponse getDonationsPageByYear(int year, int limit, String pageToken) {
+        try {
+            String currentUser = getCurrentUserFullName();
+            User.Role userRole = getCurrentUserRole();
+
+            if (currentUser == null || userRole == null) {
+                return DonationResponse.failure("Authentication required");
+            }
+
+            DonationCursor after = pageToken != null ? DonationCursor.decode(pageToken) : null;
+
+            if (!donationTableService.tableExists(year)) {
+                return DonationResponse.page("No donations found for year " + year,
+                        List.of(), String.valueOf(year), null);
+            }
+
+            // Fetch one extra row to know whether another page follows
+            String createdBy = userRole == User.Role.ADMIN ? null : currentUser;
+            List<Donation> donations = donationRepository.findPageByYear(year, createdBy, after, limit + 1);
+
+            boolean hasMore = donations.size() > limit;
+            if (hasMore) {
+                donations = donations.subList(0, limit);
+            }
+            String nextPageToken = hasMore ? DonationCursor.after(donations.get(donations.size() - 1)).encode() : null;
+
+            boolean isAdmin = userRole == User.Role.ADMIN;
+            List<DonationResponse.DonationData> responseData = donations.stream()
+                    .map(donation -> new DonationResponse.DonationData(donation, isAdmin, isAdmin))
+                    .toList();
+
+            log.info("Retrieved page of {} donations for year {} for user {} (role: {}, hasMore: {})",
+                    donations.size(), year, currentUser, userRole, hasMore);
+
+            return DonationResponse.page("Donations retrieved successfully",
+                    responseData, String.valueOf(year), nextPageToken);
+
+        } catch (IllegalArgumentException e) {
+            return DonationResponse.failure(e.getMessage());
+        } catch (Exception e) {
+            log.error("Error retrieving donation page for year {}: {}", year, e.getMessage());
+            return DonationResponse.failure("Failed to retrieve donations: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get all donations across all years (ADMIN only).
+     * Year tables are queried in parallel and merged newest first; with a limit
+     * each year returns at most that many rows and the merge stops once enough
+     * have been taken. Runs without a transaction so the calling thread does not
+     * hold a pooled connection while the fan-out threads need theirs.
      */
-    public DonationResponse getAllDonations() {
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public DonationResponse getAllDonations(Integer limit) {
         try {
             User.Role userRole = getCurrentUserRole();
             String currentUser = getCurrentUserFullName();
@@ -137,10 +504,15 @@ public class DonationService {
             }
 
             List<Integer> existingYears = donationTableService.getExistingTableYears();
-            List<DonationResponse.DonationData> allDonations = existingYears.stream()
-                    .flatMap(year -> donationRepository.findAllByYear(year).stream())
-                    .map(donation -> new DonationResponse.DonationData(donation, true, true))
-                    .toList();
+            Iterator<Donation> merged = limit != null
+                    ? donationYearFanOut.queryMerged(existingYears,
+                            year -> donationRepository.findPageByYear(year, null, null, limit))
+                    : donationYearFanOut.queryMerged(existingYears, donationRepository::findAllByYear);
+
+            List<DonationResponse.DonationData> allDonations = new ArrayList<>();
+            while (merged.hasNext() && (limit == null || allDonations.size() < limit)) {
+                allDonations.add(new DonationResponse.DonationData(merged.next(), true, true));
+            }
 
             log.info("Retrieved {} total donations across {} years for admin user {}", 
                     allDonations.size(), existingYears.size(), currentUser);
@@ -155,8 +527,281 @@ public class DonationService {
     }
 
     /**
-     * Update an existing donation (ADMIN only)
+     * Get donations created between two dates (inclusive) with role-based filtering.
+     * Only the year tables the range overlaps are queried, each with a
+     * created_date range clipped to that year, and the results are merged newest first.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public DonationResponse getDonationsByDateRange(LocalDate from, LocalDate to, Integer limit) {
+        try {
+            String currentUser = getCurrentUserFullName();
+            User.Role userRole = getCurrentUserRole();
+
+            if (currentUser == null || userRole == null) {
+                return DonationResponse.failure("Authentication required");
+            }
+
+            String range = from + ".." + to;
+            List<Integer> years = donationTableService.getExistingTableYears().stream()
+                    .filter(year -> year >= from.getYear() && year <= to.getYear())
+                    .toList();
+
+            boolean isAdmin = userRole == User.Role.ADMIN;
+            String createdBy = isAdmin ? null : currentUser;
+            Iterator<Donation> merged = donationYearFanOut.queryMerged(years, year -> {
+                LocalDate yearFrom = from.getYear() == year ? from : LocalDate.of(year, 1, 1);
+                LocalDate yearTo = to.getYear() == year ? to : LocalDate.of(year, 12, 31);
+                return donationRepository.findByYearAndDateRange(year, yearFrom, yearTo, createdBy, limit);
+            });
+
+            List<DonationResponse.DonationData> responseData = new ArrayList<>();
+            while (merged.hasNext() && (limit == null || responseData.size() < limit)) {
+                responseData.add(new DonationResponse.DonationData(merged.next(), isAdmin, isAdmin));
+            }
+
+            log.info("Retrieved {} donations between {} and {} from {} year tables for user {} (role: {})",
+                    responseData.size(), from, to, years.size(), currentUser, userRole);
+
+            return DonationResponse.success("Donations retrieved successfully",
+                    responseData, responseData.size(), range);
+
+        } catch (Exception e) {
+            log.error("Error retrieving donations between {} and {}: {}", from, to, e.getMessage());
+            return DonationResponse.failure("Failed to retrieve donations: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get donations created, updated or deleted since a sync cursor, with
+     * role-based filtering. Without a cursor only a starting cursor is returned:
+     * clients take it, download their data, then sync from it.
+     * Changes are delivered up to sync-lag behind the database clock, which is
+     * longer than any write transaction may run, so rows stamped before the
+     * watermark have committed by the time it is handed out; clients apply
+     * them idempotently. At most sync-max-changes are returned at once, cut at
+     * a change time, with hasMore set while more are pending.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public DonationChangesResponse getChangesSince(String since) {
+        try {
+            String currentUser = getCurrentUserFullName();
+            User.Role userRole = getCurrentUserRole();
+
+            if (currentUser == null || userRole == null) {
+                return DonationChangesResponse.failure("Authentication required");
+            }
+
+            LocalDateTime now = donationRepository.databaseNow();
+            LocalDateTime upTo = now.minus(syncLag);
+
+            if (since == null) {
+                return DonationChangesResponse.success(List.of(), List.of(),
+                        new DonationChangeCursor(upTo).encode(), false);
+            }
+
+            LocalDateTime from = DonationChangeCursor.decode(since).watermark();
+            if (from.isBefore(now.minus(tombstoneRetention))) {
+                log.info("Sync cursor {} for user {} is past tombstone retention, requesting full resync", from, currentUser);
+                return DonationChangesResponse.fullResync(new DonationChangeCursor(upTo).encode());
+            }
+            if (!from.isBefore(upTo)) {
+                return DonationChangesResponse.success(List.of(), List.of(), since, false);
+            }
+
+            boolean isAdmin = userRole == User.Role.ADMIN;
+            String createdBy = isAdmin ? null : currentUser;
+
+            // Old year tables can still receive edits, so every table is checked via the change-time indexes
+            List<Integer> years = donationTableService.getExistingTableYears();
+            ChangePage page = readChanges(years, from, upTo, createdBy, syncMaxChanges + 1);
+            LocalDateTime pageEnd = upTo;
+            boolean hasMore = page.size() > syncMaxChanges;
+            if (hasMore) {
+                // End the page at a change time, so the next one starts exactly where it stops
+                List<LocalDateTime> changeTimes = page.changeTimes(from, upTo);
+                LocalDateTime boundary = changeTimes.get(syncMaxChanges);
+                if (boundary.isAfter(changeTimes.get(0))) {
+                    pageEnd = boundary;
+                    page = page.changedBefore(boundary, from, upTo);
+                } else {
+                    // One transaction stamped more rows than a page holds; they all go together
+                    pageEnd = boundary.plusNanos(1000).isBefore(upTo) ? boundary.plusNanos(1000) : upTo;
+                    page = readChanges(years, from, pageEnd, createdBy, Integer.MAX_VALUE);
+                    hasMore = pageEnd.isBefore(upTo);
+                }
+            }
+
+            List<DonationResponse.DonationData> changedData = page.changed().stream()
+                    .map(donation -> new DonationResponse.DonationData(donation, isAdmin, isAdmin))
+                    .toList();
+            List<DonationChangesResponse.DeletedDonation> deleted = page.deleted().stream()
+                    .map(tombstone -> new DonationChangesResponse.DeletedDonation(
+                            tombstone.year(), tombstone.id(), tombstone.deletedAt()))
+                    .toList();
+
+            log.info("Delta sync for user {} since {}: {} changed, {} deleted{}",
+                    currentUser, from, changedData.size(), deleted.size(), hasMore ? ", more pending" : "");
+
+            return DonationChangesResponse.success(changedData, deleted,
+                    new DonationChangeCursor(pageEnd).encode(), hasMore);
+
+        } catch (IllegalArgumentException e) {
+            return DonationChangesResponse.failure(e.getMessage());
+        } catch (Exception e) {
+            log.error("Error retrieving donation changes: {}", e.getMessage());
+            return DonationChangesResponse.failure("Failed to retrieve changes: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Read up to limit changed donations per year table and up to limit
+     * deletions in [from, to). Whatever the limit, every change earlier than
+     * the limit-th earliest overall is included.
      */
+    private ChangePage readChanges(List<Integer> years, LocalDateTime from, LocalDateTime to,
+                                   String createdBy, int limit) {
+        Comparator<Donation> byChangeTime = Comparator
+                .comparing((Donation donation) -> DonationRepository.changeTime(donation, from, to))
+                .thenComparing(Donation::getId);
+        List<Donation> changed = new ArrayList<>();
+        donationYearFanOut.queryMerged(years,
+                year -> donationRepository.findChangedBetween(year, from, to, createdBy, limit), byChangeTime)
+                .forEachRemaining(changed::add);
+        List<DonationTombstoneRepository.Tombstone> deleted =
+                donationTombstoneRepository.findDeletedBetween(from, to, createdBy, limit);
+        return new ChangePage(changed, deleted);
+    }
+
+    private record ChangePage(List<Donation> changed, List<DonationTombstoneRepository.Tombstone> deleted) {
+
+        int size() {
+            return changed.size() + deleted.size();
+        }
+
+        List<LocalDateTime> changeTimes(LocalDateTime from, LocalDateTime to) {
+            List<LocalDateTime> times = new ArrayList<>(size());
+            changed.forEach(donation -> times.add(DonationRepository.changeTime(donation, from, to)));
+            deleted.forEach(tombstone -> times.add(tombstone.deletedAt()));
+            times.sort(null);
+            return times;
+        }
+
+        ChangePage changedBefore(LocalDateTime boundary, LocalDateTime from, LocalDateTime to) {
+            return new ChangePage(
+                    changed.stream().filter(donation -> DonationRepository.changeTime(donation, from, to).isBefore(boundary)).toList(),
+                    deleted.stream().filter(tombstone -> tombstone.deletedAt().isBefore(boundary)).toList());
+        }
+    }
+
+    /**
+     * Stream every donation across all years to the given output (ADMIN only).
+     * Rows are written as they are read from each year table, so heap use does
+     * not grow with the amount of history.
+     * Every NDJSON line is a donation, and the newline ending the last one is
+     * only written once every year has been; a JSON array is likewise only
+     * closed then. If a year fails mid-stream the output is abandoned as it
+     * is, so a truncated export is never a well-formed one.
+     */
+    @Transactional(readOnly = true)
+    public void exportAllDonations(OutputStream out, ExportFormat format) throws IOException {
+        List<Integer> existingYears = donationTableService.getExistingTableYears();
+        ObjectWriter writer = objectMapper.writerFor(DonationResponse.DonationData.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        long[] written = {0};
+
+        // Not try-with-resources: closing the sequence ends the array, which only a complete export may do
+        SequenceWriter sequence = format == ExportFormat.NDJSON
+                ? writer.withRootValueSeparator("\n").writeValues(out)
+                : writer.writeValuesAsArray(out);
+        try {
+            for (Integer year : existingYears) {
+                donationRepository.streamAllByYear(year, exportFetchSize, donation -> {
+                    try {
+                        sequence.write(new DonationResponse.DonationData(donation, true, true));
+                        written[0]++;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                sequence.flush();
+            }
+        } catch (UncheckedIOException e) {
+            log.error("Export aborted after {} donations: {}", written[0], e.getMessage());
+            throw e.getCause();
+        } catch (RuntimeException e) {
+            log.error("Export aborted after {} donations: {}", written[0], e.getMessage());
+            throw e;
+        }
+        sequence.close();
+
+        // Lines are separated as they are written; only a complete export terminates the last one
+        if (format == ExportFormat.NDJSON && written[0] > 0) {
+            out.write('\n');
+        }
+        out.flush();
+
+        log.info("Exported {} donations across {} years as {}", written[0], existingYears.size(), format);
+    }
+
+    /**
+     * Aggregate a year's donations for the admin dashboard (ADMIN only):
+     * count and total, optionally grouped by month, type and/or collector and
+     * filtered by date range, type and collector. Served from the in-memory
+     * columnar snapshot, so only the first query of a year reads the table.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public DonationAnalyticsResponse getAnalytics(int year, List<String> groupBy, LocalDate from, LocalDate to,
+                                                  String donationType, String createdBy) {
+        try {
+            if (getCurrentUserRole() != User.Role.ADMIN) {
+                return DonationAnalyticsResponse.failure("Access denied. Admin privileges required.");
+            }
+            if (!donationAnalyticsCache.isEnabled()) {
+                return DonationAnalyticsResponse.failure("Donation analytics are disabled");
+            }
+
+            List<String> dimensions = groupBy != null
+                    ? groupBy.stream().map(String::trim).distinct().toList()
+                    : List.of();
+            for (String dimension : dimensions) {
+                if (!List.of("month", "type", "collector").contains(dimension)) {
+                    return DonationAnalyticsResponse.failure("Invalid groupBy " + dimension
+                            + ". Use month, type and/or collector");
+                }
+            }
+            if (from != null && to != null && from.isAfter(to)) {
+                return DonationAnalyticsResponse.failure("Invalid range. from must not be after to");
+            }
+
+            long started = System.nanoTime();
+            DonationAnalyticsCache.Aggregate aggregate = donationAnalyticsCache.aggregate(year,
+                    new DonationAnalyticsCache.Query(dimensions.contains("month"), dimensions.contains("type"),
+                            dimensions.contains("collector"), from, to, donationType, createdBy));
+            List<DonationAnalyticsResponse.Group> groups = aggregate.groups().stream()
+                    .map(group -> new DonationAnalyticsResponse.Group(group.month(), group.donationType(),
+                            group.createdBy(), group.count(), group.totalAmount()))
+                    .toList();
+
+            log.info("Aggregated {} donations for year {} into {} groups by {} in {} us",
+                    aggregate.count(), year, groups.size(), dimensions, (System.nanoTime() - started) / 1_000);
+
+            return DonationAnalyticsResponse.success(String.valueOf(year), dimensions, aggregate.count(),
+                    aggregate.totalAmount(), groups);
+
+        } catch (IllegalArgumentException e) {
+            return DonationAnalyticsResponse.failure(e.getMessage());
+        } catch (Exception e) {
+            log.error("Error aggregating donations for year {}: {}", year, e.getMessage());
+            return DonationAnalyticsResponse.failure("Failed to aggregate donations: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Update an existing donation (ADMIN only).
+     * The repository's own transaction, bounded by the write timeout, covers
+     * the edit; nothing here needs to hold one open around it.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public DonationResponse updateDonation(Long donationId, int year, DonationRequest request) {
         try {
             User.Role userRole = getCurrentUserRole();
@@ -207,8 +852,10 @@ public class DonationService {
     }
 
     /**
-     * Delete a donation (ADMIN only)
+     * Delete a donation (ADMIN only).
+     * Like updateDonation, runs in the repository's bounded transaction only.
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public DonationResponse deleteDonation(Long donationId, int year) {
         try {
             User.Role userRole = getCurrentUserRole();
@@ -225,7 +872,7 @@ public class DonationService {
             }
 
             // Delete donation
-            boolean deleted = donationRepository.deleteByIdAndYear(donationId, year);
+            boolean deleted = donationRepository.deleteByIdAndYear(donationId, year, currentUser);
             
             if (!deleted) {
                 return DonationResponse.failure("Failed to delete donation");
@@ -280,4 +927,12 @@ public class DonationService {
             return null;
         }
     }
+
+    /**
+     * Output formats for the streaming export
+     */
+    public enum ExportFormat {
+        NDJSON,
+        JSON_ARRAY
+    }
 }
@@ -1,13 +1,31 @@
 package com.app.server.service;
 
+import com.app.server.repository.DonationRollupRepository;
+import com.app.server.repository.DonationYearVersions;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 @RequiredArgsConstructor
@@ -15,11 +33,74 @@ import java.util.List;
 public class DonationTableService {
 
     private final JdbcTemplate jdbcTemplate;
+    private final DonationRollupRepository donationRollupRepository;
+    private final DonationYearVersions donationYearVersions;
+
+    // Years whose donation table is known to exist, so existence checks on hot
+    // paths don't query information_schema. Only a positive cache: a year
+    // missing here may have been created by another node, so listings read
+    // the catalog.
+    private final Set<Integer> knownTableYears = ConcurrentHashMap.newKeySet();
+
+    // Year table creations running in this JVM, joined by concurrent callers
+    private final Map<Integer, CompletableFuture<Void>> inFlightCreations = new ConcurrentHashMap<>();
+
+    private static final String NODE_ID = ManagementFactory.getRuntimeMXBean().getName();
+    private static final Duration STALE_CLAIM_AFTER = Duration.ofMinutes(2);
+    // Outlasts the stale window, so a node waiting on a claim whose owner died
+    // sees it go stale on the database clock and takes it over
+    private static final Duration CREATION_WAIT_TIMEOUT = STALE_CLAIM_AFTER.plusSeconds(30);
+    private static final Duration CREATION_POLL_INTERVAL = Duration.ofMillis(100);
+
+    /**
+     * Create the cross-node lock table and load the year-table registry
+     */
+    @PostConstruct
+    public void initialize() {
+        jdbcTemplate.execute("""
+            CREATE TABLE IF NOT EXISTS donation_table_locks (
+                table_year INT PRIMARY KEY,
+                status VARCHAR(16) NOT NULL,
+                claimed_by VARCHAR(255) NOT NULL,
+                claimed_at TIMESTAMP NOT NULL
+            )
+            """);
+        refreshRegistry();
+    }
 
     /**
-     * Check if a donation table exists for the given year
+     * Load the year-table registry from the database catalog
+     */
+    public void refreshRegistry() {
+        try {
+            List<Integer> years = loadTableYearsFromCatalog();
+            knownTableYears.addAll(years);
+            log.info("Donation table registry loaded with years: {}", years);
+        } catch (DataAccessException e) {
+            log.error("Error loading donation table registry: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Check if a donation table exists for the given year.
+     * Answered from the registry; only unknown years fall back to the catalog.
      */
     public boolean tableExists(int year) {
+        if (knownTableYears.contains(year)) {
+            return true;
+        }
+        boolean exists = tableExistsInCatalog(year);
+        if (exists) {
+            // Created by another node or outside the application
+            knownTableYears.add(year);
+        }
+        return exists;
+    }
+
+    /**
+     * Check the database catalog for a donation table for the given year
+     */
+    private boolean tableExistsInCatalog(int year) {
         String tableName = "donations_" + year;
         try {
             // Use H2-compatible query for checking table existence
@@ -35,48 +116,219 @@ public class DonationTableService {
     }
 
     /**
-     * Create a donation table for the given year
+     * Create a donation table for the given year.
+     * Concurrent callers in this JVM share one creation; other instances
+     * sharing the database are coordinated through a claim row in
+     * donation_table_locks. Runs outside any caller transaction because DDL
+     * commits implicitly and the claim must be visible to other nodes at once.
      */
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void createTableForYear(int year) {
+        createTableForYear(year, true);
+    }
+
+    /**
+     * Create a donation table for the given year, optionally without its
+     * secondary indexes. Bulk loads create the table bare, insert, and then
+     * call createIndexesForYear, which is much faster than maintaining every
+     * index row by row. A table created bare is still registered as ready.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void createTableForYear(int year, boolean withIndexes) {
         String tableName = "donations_" + year;
-        
-        if (tableExists(year)) {
+
+        if (knownTableYears.contains(year)) {
             log.info("Table {} already exists, skipping creation", tableName);
             return;
         }
 
+        CompletableFuture<Void> creation = new CompletableFuture<>();
+        CompletableFuture<Void> inFlight = inFlightCreations.putIfAbsent(year, creation);
+        if (inFlight != null) {
+            log.debug("Waiting for in-flight creation of table {}", tableName);
+            awaitInFlightCreation(inFlight, year);
+            return;
+        }
+
         try {
-            // Create the main table first
-            String createTableSql = """
-                CREATE TABLE %s (
-                    id BIGINT AUTO_INCREMENT PRIMARY KEY,
-                    donor_name VARCHAR(100) NOT NULL,
-                    donor_address VARCHAR(255) NOT NULL,
-                    donor_phone VARCHAR(15) NOT NULL,
-                    donation_amount DECIMAL(10,2) NOT NULL,
-                    donation_type VARCHAR(50) DEFAULT 'Cash',
-                    notes VARCHAR(500),
-                    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                    created_date DATE NOT NULL,
-                    created_by VARCHAR(100) NOT NULL,
-                    updated_at TIMESTAMP NULL,
-                    updated_by VARCHAR(100) NULL
-                )
-                """.formatted(tableName);
-
-            jdbcTemplate.execute(createTableSql);
-            log.info("Successfully created donation table: {}", tableName);
+            createTableWithClaim(year, withIndexes);
+            knownTableYears.add(year);
+            creation.complete(null);
+        } catch (RuntimeException e) {
+            creation.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightCreations.remove(year, creation);
+        }
+    }
+
+    /**
+     * Create the table if this node wins the claim for the year, otherwise
+     * wait for the node that holds it. Starts over if that node gives up.
+     */
+    private void createTableWithClaim(int year, boolean withIndexes) {
+        long deadline = System.nanoTime() + CREATION_WAIT_TIMEOUT.toNanos();
+        while (true) {
+            if (claimTableCreation(year)) {
+                createClaimedTable(year, withIndexes);
+                return;
+            }
+            switch (waitForClaimedCreation(year, deadline)) {
+                case READY -> {
+                    return;
+                }
+                case TAKEN_OVER -> {
+                    // The owner went stale; finish the creation ourselves
+                    createClaimedTable(year, withIndexes);
+                    return;
+                }
+                case RELEASED -> {
+                    // The owner gave up; claim again
+                }
+            }
+        }
+    }
+
+    /**
+     * Create the table, and its indexes if asked, once this node holds the claim
+     */
+    private void createClaimedTable(int year, boolean withIndexes) {
+        String tableName = "donations_" + year;
+
+        try {
+            if (tableExistsInCatalog(year)) {
+                log.info("Table {} already exists, skipping creation", tableName);
+            } else {
+                // Create the main table first
+                String createTableSql = """
+                    CREATE TABLE IF NOT EXISTS %s (
+                        id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                        donor_name VARCHAR(100) NOT NULL,
+                        donor_address VARCHAR(255) NOT NULL,
+                        donor_phone VARCHAR(15) NOT NULL,
+                        donation_amount DECIMAL(10,2) NOT NULL,
+                        donation_type VARCHAR(50) DEFAULT 'Cash',
+                        notes VARCHAR(500),
+                        created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                        created_date DATE NOT NULL,
+                        created_by VARCHAR(100) NOT NULL,
+                        updated_at TIMESTAMP NULL,
+                        updated_by VARCHAR(100) NULL
+                    )
+                    """.formatted(tableName);
+
+                jdbcTemplate.execute(createTableSql);
+                log.info("Successfully created donation table: {}", tableName);
+            }
 
             // Create indexes separately for H2 compatibility
-            createIndexes(tableName);
+            if (withIndexes) {
+                createIndexes(tableName);
+            }
+
+            jdbcTemplate.update("UPDATE donation_table_locks SET status = 'READY' WHERE table_year = ?", year);
 
         } catch (Exception e) {
             log.error("Failed to create table {}: {}", tableName, e.getMessage());
+            // Release the claim so another caller can retry
+            jdbcTemplate.update("DELETE FROM donation_table_locks WHERE table_year = ? AND status = 'CREATING'", year);
             throw new RuntimeException("Failed to create donation table for year " + year, e);
         }
     }
 
+    /**
+     * Try to claim creation of the year table for this node
+     */
+    private boolean claimTableCreation(int year) {
+        try {
+            jdbcTemplate.update("""
+                    INSERT INTO donation_table_locks (table_year, status, claimed_by, claimed_at)
+                    VALUES (?, 'CREATING', ?, CURRENT_TIMESTAMP)
+                    """, year, NODE_ID);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Poll the claim row until the owning node marks the table ready or gives
+     * the claim up. A claim left behind by a node that died mid-creation is
+     * taken over once stale. Claim ages are measured on the database clock, which also stamps them,
+     * so nodes with different JVM clocks agree on when a claim is stale.
+     */
+    private ClaimWait waitForClaimedCreation(int year, long deadline) {
+        while (System.nanoTime() < deadline) {
+            List<Claim> claim = jdbcTemplate.query(
+                    "SELECT status, claimed_at, CURRENT_TIMESTAMP AS db_now FROM donation_table_locks WHERE table_year = ?",
+                    (rs, rowNum) -> new Claim(rs.getString("status"), rs.getTimestamp("claimed_at"),
+                            rs.getTimestamp("db_now")), year);
+            if (claim.isEmpty()) {
+                return ClaimWait.RELEASED;
+            }
+            if (claim.get(0).ready()) {
+                return ClaimWait.READY;
+            }
+            // Only a claim just seen to be stale is worth an update
+            if (claim.get(0).staleAt(STALE_CLAIM_AFTER) && takeOverStaleClaim(year, claim.get(0).claimedAt())) {
+                return ClaimWait.TAKEN_OVER;
+            }
+            try {
+                Thread.sleep(CREATION_POLL_INTERVAL.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted waiting for donation table for year " + year, e);
+            }
+        }
+        throw new RuntimeException("Timed out waiting for donation table for year " + year);
+    }
+
+    /**
+     * Take a stale claim over, unless another node took it or its owner
+     * touched it since it was read
+     */
+    private boolean takeOverStaleClaim(int year, Timestamp claimedAt) {
+        int taken = jdbcTemplate.update("""
+                UPDATE donation_table_locks SET claimed_by = ?, claimed_at = CURRENT_TIMESTAMP
+                WHERE table_year = ? AND status = 'CREATING' AND claimed_at = ?
+                """, NODE_ID, year, claimedAt);
+        if (taken > 0) {
+            log.warn("Took over stale creation claim for donation table year {}", year);
+        }
+        return taken > 0;
+    }
+
+    private enum ClaimWait { READY, RELEASED, TAKEN_OVER }
+
+    private record Claim(String status, Timestamp claimedAt, Timestamp databaseNow) {
+
+        boolean ready() {
+            return "READY".equals(status);
+        }
+
+        boolean staleAt(Duration staleAfter) {
+            return claimedAt.toLocalDateTime().plus(staleAfter).isBefore(databaseNow.toLocalDateTime());
+        }
+    }
+
+    /**
+     * Wait for another thread in this JVM to finish creating the year table.
+     * That thread may itself wait out another node's claim first, so this
+     * waits twice as long.
+     */
+    private void awaitInFlightCreation(CompletableFuture<Void> inFlight, int year) {
+        try {
+            inFlight.get(CREATION_WAIT_TIMEOUT.multipliedBy(2).toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to create donation table for year " + year, e.getCause());
+        } catch (TimeoutException e) {
+            throw new RuntimeException("Timed out waiting for donation table for year " + year, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted waiting for donation table for year " + year, e);
+        }
+    }
+
     /**
      * Ensure table exists for the current year
      */
@@ -88,6 +340,7 @@ public class DonationTableService {
     /**
      * Ensure table exists for a specific year
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void ensureTableExistsForYear(int year) {
         if (!tableExists(year)) {
             log.info("Creating donation table for year: {}", year);
@@ -96,59 +349,105 @@ public class DonationTableService {
     }
 
     /**
-     * Get all existing donation table years
+     * Get all existing donation table years, newest first. Read from the
+     * catalog so tables created by other nodes are listed at once; falls back
+     * to the registry if the catalog cannot be read.
      */
     public List<Integer> getExistingTableYears() {
         try {
-            // Simple H2-compatible query for getting existing table years
-            String sql = """
-                SELECT table_name
-                FROM information_schema.tables
-                WHERE UPPER(table_name) LIKE 'DONATIONS_%'
-                ORDER BY table_name DESC
-                """;
-
-            List<String> tableNames = jdbcTemplate.queryForList(sql, String.class);
-            return tableNames.stream()
-                    .filter(tableName -> tableName.toUpperCase().startsWith("DONATIONS_"))
-                    .map(tableName -> tableName.substring(10)) // Remove "donations_" prefix
-                    .filter(year -> year.matches("\\d{4}")) // Only 4-digit years
-                    .map(Integer::parseInt)
-                    .sorted((a, b) -> b.compareTo(a)) // Sort descending
-                    .toList();
-        } catch (Exception e) {
+            List<Integer> years = loadTableYearsFromCatalog();
+            knownTableYears.addAll(years);
+            return years;
+        } catch (DataAccessException e) {
             log.error("Error getting existing table years: {}", e.getMessage());
-            return List.of();
+            return knownTableYears.stream()
+                    .sorted(Comparator.reverseOrder())
+                    .toList();
         }
     }
 
     /**
-     * Get table statistics for a specific year
+     * Read all existing donation table years from the database catalog
+     */
+    private List<Integer> loadTableYearsFromCatalog() {
+        // Simple H2-compatible query for getting existing table years
+        String sql = """
+            SELECT table_name
+            FROM information_schema.tables
+            WHERE UPPER(table_name) LIKE 'DONATIONS_%'
+            ORDER BY table_name DESC
+            """;
+
+        List<String> tableNames = jdbcTemplate.queryForList(sql, String.class);
+        return tableNames.stream()
+                .filter(tableName -> tableName.toUpperCase().startsWith("DONATIONS_"))
+                .map(tableName -> tableName.substring(10)) // Remove "donations_" prefix
+                .filter(year -> year.matches("\\d{4}")) // Only 4-digit years
+                .map(Integer::parseInt)
+                .sorted((a, b) -> b.compareTo(a)) // Sort descending
+                .toList();
+    }
+
+    /**
+     * Get table statistics for a specific year, read from the daily rollup
      */
     public TableStats getTableStats(int year) {
         String tableName = "donations_" + year;
         
         if (!tableExists(year)) {
-            return new TableStats(year, 0, null, null);
+            return new TableStats(year, 0, BigDecimal.ZERO, null, null);
         }
 
         try {
-            String countSql = "SELECT COUNT(*) FROM " + tableName;
-            Integer totalRecords = jdbcTemplate.queryForObject(countSql, Integer.class);
+            DonationRollupRepository.YearSummary summary = donationRollupRepository.getYearSummary(year);
 
-            String minDateSql = "SELECT MIN(created_date) FROM " + tableName;
-            String maxDateSql = "SELECT MAX(created_date) FROM " + tableName;
-            
-            LocalDate minDate = jdbcTemplate.queryForObject(minDateSql, LocalDate.class);
-            LocalDate maxDate = jdbcTemplate.queryForObject(maxDateSql, LocalDate.class);
-
-            return new TableStats(year, totalRecords != null ? totalRecords : 0, minDate, maxDate);
+            return new TableStats(year, (int) summary.totalRecords(), summary.totalAmount(),
+                    summary.firstDonationDate(), summary.lastDonationDate());
         } catch (Exception e) {
             log.error("Error getting table stats for {}: {}", tableName, e.getMessage());
-            return new TableStats(year, 0, null, null);
+            return new TableStats(year, 0, BigDecimal.ZERO, null, null);
+        }
+    }
+
+    /**
+     * Recompute the daily rollup for a year from its donation table
+     */
+    @Transactional
+    public int rebuildRollup(int year) {
+        if (!tableExists(year)) {
+            throw new IllegalArgumentException("No donation table exists for year " + year);
+        }
+        int rows = donationRollupRepository.rebuildYear(year);
+        // Stats are served from the rollup, so a rebuild changes them
+        donationYearVersions.bump(year);
+        return rows;
+    }
+
+    /**
+     * Check whether the daily rollup has been built for a year
+     */
+    public boolean hasRollup(int year) {
+        return donationRollupRepository.hasRollupForYear(year);
+    }
+
+    /**
+     * Add any missing indexes to every known year table,
+     * e.g. indexes introduced after a table was created
+     */
+    public void ensureIndexesForExistingTables() {
+        for (Integer year : getExistingTableYears()) {
+            createIndexes("donations_" + year);
         }
     }
 
+    /**
+     * Add any missing indexes to one year table, e.g. after a bulk load
+     * into a table created without them
+     */
+    public void createIndexesForYear(int year) {
+        createIndexes("donations_" + year);
+    }
+
     /**
      * Create indexes for a donation table
      */
@@ -159,7 +458,12 @@ public class DonationTableService {
                 "CREATE INDEX IF NOT EXISTS idx_%s_donor_name ON %s (donor_name)".formatted(tableName, tableName),
                 "CREATE INDEX IF NOT EXISTS idx_%s_created_date ON %s (created_date)".formatted(tableName, tableName),
                 "CREATE INDEX IF NOT EXISTS idx_%s_created_by ON %s (created_by)".formatted(tableName, tableName),
-                "CREATE INDEX IF NOT EXISTS idx_%s_donation_amount ON %s (donation_amount)".formatted(tableName, tableName)
+                "CREATE INDEX IF NOT EXISTS idx_%s_donation_amount ON %s (donation_amount)".formatted(tableName, tableName),
+                // Covers the keyset pagination ordering (created_date, created_at, id)
+                "CREATE INDEX IF NOT EXISTS idx_%s_keyset ON %s (created_date, created_at, id)".formatted(tableName, tableName),
+                // Delta sync looks rows up by change time
+                "CREATE INDEX IF NOT EXISTS idx_%s_created_at ON %s (created_at)".formatted(tableName, tableName),
+                "CREATE INDEX IF NOT EXISTS idx_%s_updated_at ON %s (updated_at)".formatted(tableName, tableName)
             };
 
             for (String indexQuery : indexQueries) {
@@ -183,5 +487,6 @@ public class DonationTableService {
     /**
      * Data class for table statistics
      */
-    public record TableStats(int year, int totalRecords, LocalDate firstDonationDate, LocalDate lastDonationDate) {}
+    public record TableStats(int year, int totalRecords, BigDecimal totalAmount,
+                             LocalDate firstDonationDate, LocalDate lastDonationDate) {}
 }
@@ -0,0 +1,224 @@
+package com.app.server.service;
+
+import com.app.server.exception.IngestionBusyException;
+import com.app.server.model.Donation;
+import com.app.server.repository.DonationRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Opt-in write-behind ingestion for peak days. Validated donations are queued
+ * in a bounded ring buffer; a single writer thread drains whatever has
+ * accumulated and commits it as one group with multi-row inserts, so many
+ * donations share one commit. Each caller's future completes with the saved
+ * donation, including its generated ID, once its group has committed.
+ *
+ * A queued donation can be cancelled until the writer takes it into a group;
+ * cancelled donations are skipped, so a caller that gave up waiting can tell
+ * its client to retry without the donation being saved twice.
+ */
+@Component
+@Slf4j
+public class DonationWriteBehindWriter {
+
+    private static final long POLL_INTERVAL_MS = 100;
+
+    private final DonationRepository donationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int maxGroupSize;
+    private final long offerTimeoutMs;
+    private final long shutdownTimeoutMs;
+    private final BlockingQueue<PendingDonation> buffer;
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public DonationWriteBehindWriter(DonationRepository donationRepository,
+                                     TransactionTemplate transactionTemplate,
+                                     @Value("${app.donations.write-behind.enabled:false}") boolean enabled,
+                                     @Value("${app.donations.write-behind.capacity:10000}") int capacity,
+                                     @Value("${app.donations.write-behind.max-group-size:500}") int maxGroupSize,
+                                     @Value("${app.donations.write-behind.offer-timeout-ms:200}") long offerTimeoutMs,
+                                     @Value("${app.donations.write-behind.shutdown-timeout-ms:30000}") long shutdownTimeoutMs) {
+        this.donationRepository = donationRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.maxGroupSize = maxGroupSize;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Start the writer thread when write-behind is enabled
+     */
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writerThread = new Thread(this::runWriter, "donation-write-behind");
+        writerThread.start();
+        log.info("Write-behind donation ingestion enabled (capacity: {}, max group size: {})",
+                buffer.remainingCapacity(), maxGroupSize);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queue a donation for the next group commit. The year table must already exist.
+     * Blocks up to the offer timeout while the buffer is full, then fails with
+     * IngestionBusyException so callers shed load instead of queueing without bound.
+     */
+    public CompletableFuture<Donation> submit(Donation donation, int year) {
+        if (!running) {
+            throw new IllegalStateException("Write-behind ingestion is not running");
+        }
+
+        PendingDonation pending = new PendingDonation(donation, year, new PendingResult());
+        try {
+            if (!buffer.offer(pending, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new IngestionBusyException("Donation ingestion is busy, please retry shortly");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing donation", e);
+        }
+
+        // Shutdown may have finished draining between the running check and the offer
+        if (!running && buffer.remove(pending)) {
+            pending.result().completeExceptionally(new IllegalStateException("Write-behind ingestion is shutting down"));
+        }
+        return pending.result();
+    }
+
+    /**
+     * Queue a donation and wait up to the timeout for its group commit. If the
+     * writer has not taken the donation by then it is withdrawn from the queue
+     * and IngestionBusyException is thrown, so nothing is saved behind the
+     * caller's back; once taken, the commit already under way is awaited.
+     */
+    public Donation submitAndWait(Donation donation, int year, long timeoutMs)
+            throws ExecutionException, InterruptedException {
+        CompletableFuture<Donation> result = submit(donation, year);
+        try {
+            return result.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (result.cancel(false)) {
+                log.warn("Withdrew queued donation for year {} after waiting {} ms", year, timeoutMs);
+                throw new IngestionBusyException("Donation ingestion is busy and the donation was not saved, please retry");
+            }
+            return result.get();
+        }
+    }
+
+    private void runWriter() {
+        List<PendingDonation> group = new ArrayList<>(maxGroupSize);
+        while (running || !buffer.isEmpty()) {
+            try {
+                PendingDonation first = buffer.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                buffer.drainTo(group, maxGroupSize - 1);
+                group.removeIf(pending -> !pending.result().claim());
+                if (!group.isEmpty()) {
+                    writeGroup(group);
+                }
+            } catch (InterruptedException e) {
+                // Shutdown waits for the drain; keep going until the buffer is empty
+                log.debug("Write-behind writer interrupted, continuing drain");
+            } catch (Exception e) {
+                log.error("Write-behind writer failed: {}", e.getMessage());
+                group.forEach(pending -> pending.result().completeExceptionally(e));
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    /**
+     * Commit one drained group, one transaction per year table
+     */
+    private void writeGroup(List<PendingDonation> group) {
+        Map<Integer, List<PendingDonation>> byYear = new LinkedHashMap<>();
+        for (PendingDonation pending : group) {
+            byYear.computeIfAbsent(pending.year(), year -> new ArrayList<>()).add(pending);
+        }
+
+        byYear.forEach((year, pendings) -> {
+            List<Donation> donations = pendings.stream().map(PendingDonation::donation).toList();
+            try {
+                transactionTemplate.executeWithoutResult(status -> donationRepository.saveMultiRow(donations, year));
+                pendings.forEach(pending -> pending.result().complete(pending.donation()));
+                log.debug("Group-committed {} donations to year {}", donations.size(), year);
+            } catch (Exception e) {
+                log.error("Error group-committing {} donations to year {}: {}", donations.size(), year, e.getMessage());
+                pendings.forEach(pending -> pending.result().completeExceptionally(e));
+            }
+        });
+    }
+
+    /**
+     * Stop accepting donations and commit everything already queued
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (writerThread == null) {
+            return;
+        }
+        running = false;
+        try {
+            writerThread.join(shutdownTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<PendingDonation> abandoned = new ArrayList<>();
+        buffer.drainTo(abandoned);
+        abandoned.forEach(pending -> pending.result().completeExceptionally(
+                new IllegalStateException("Write-behind ingestion stopped before the donation was saved")));
+        log.info("Write-behind donation ingestion stopped ({} queued donations abandoned)", abandoned.size());
+    }
+
+    private record PendingDonation(Donation donation, int year, PendingResult result) {}
+
+    /**
+     * A future that either the writer claims for a group or the caller
+     * cancels, whichever comes first
+     */
+    private static final class PendingResult extends CompletableFuture<Donation> {
+
+        private final AtomicBoolean settled = new AtomicBoolean();
+
+        boolean claim() {
+            return settled.compareAndSet(false, true);
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return settled.compareAndSet(false, true) && super.cancel(mayInterruptIfRunning);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.app.server.service;
+
+import com.app.server.model.Donation;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Runs one query per donations_<year> table concurrently on a bounded pool and
+ * merges the per-year results into a single globally ordered sequence, so a
+ * multi-year read takes about as long as the slowest single year.
+ */
+@Component
+@Slf4j
+public class DonationYearFanOut {
+
+    /**
+     * Same order as the year-table queries: newest first, id as tie-breaker
+     */
+    public static final Comparator<Donation> NEWEST_FIRST = Comparator
+            .comparing(Donation::getCreatedDate)
+            .thenComparing(Donation::getCreatedAt)
+            .thenComparing(Donation::getId)
+            .reversed();
+
+    private final ExecutorService executor;
+    private final long perTableTimeoutMs;
+
+    public DonationYearFanOut(@Value("${app.donations.fanout-threads:4}") int threads,
+                              @Value("${app.donations.fanout-timeout-ms:10000}") long perTableTimeoutMs) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "donation-fanout-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.executor = Executors.newFixedThreadPool(threads, threadFactory);
+        this.perTableTimeoutMs = perTableTimeoutMs;
+    }
+
+    /**
+     * Query every year concurrently and return an iterator over the merged,
+     * newest-first result. Each per-year list must already be newest first.
+     * Fails if any single year exceeds the per-table timeout.
+     */
+    public Iterator<Donation> queryMerged(List<Integer> years, IntFunction<List<Donation>> perYearQuery) {
+        return queryMerged(years, perYearQuery, NEWEST_FIRST);
+    }
+
+    /**
+     * Query every year concurrently and return an iterator over the result
+     * merged in the given order, which each per-year list must already follow
+     */
+    public Iterator<Donation> queryMerged(List<Integer> years, IntFunction<List<Donation>> perYearQuery,
+                                          Comparator<Donation> order) {
+        List<Future<List<Donation>>> futures = new ArrayList<>(years.size());
+        for (Integer year : years) {
+            futures.add(executor.submit(() -> perYearQuery.apply(year)));
+        }
+
+        List<List<Donation>> results = new ArrayList<>(years.size());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(perTableTimeoutMs);
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                // All tables run in parallel, so they share one deadline
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                results.add(futures.get(i).get(remaining, TimeUnit.NANOSECONDS));
+            }
+        } catch (TimeoutException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new RuntimeException("Timed out querying donation tables for years " + years, e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new RuntimeException("Failed to query donation tables: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted querying donation tables", e);
+        }
+
+        return mergeSorted(results, order);
+    }
+
+    /**
+     * Lazy k-way merge of already sorted lists. Only as many elements as the
+     * caller consumes are compared, so callers can stop early.
+     */
+    public static <T> Iterator<T> mergeSorted(List<List<T>> sources, Comparator<? super T> comparator) {
+        record Head<T>(T value, Iterator<T> rest) {}
+
+        PriorityQueue<Head<T>> heads = new PriorityQueue<>(
+                Math.max(1, sources.size()), (a, b) -> comparator.compare(a.value(), b.value()));
+        for (List<T> source : sources) {
+            Iterator<T> iterator = source.iterator();
+            if (iterator.hasNext()) {
+                heads.add(new Head<>(iterator.next(), iterator));
+            }
+        }
+
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                Head<T> head = heads.poll();
+                if (head == null) {
+                    throw new NoSuchElementException();
+                }
+                if (head.rest().hasNext()) {
+                    heads.add(new Head<>(head.rest().next(), head.rest()));
+                }
+                return head.value();
+            }
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
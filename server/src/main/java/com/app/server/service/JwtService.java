@@ -2,31 +2,90 @@ package com.app.server.service;
 
 import com.app.server.model.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class JwtService {
 
+    private final TokenRevocationService tokenRevocationService;
+    private final MeterRegistry meterRegistry;
+
     @Value("${app.jwt.secret:mySecretKey}")
     private String jwtSecret;
 
     @Value("${app.jwt.expiration:86400000}")
     private long jwtExpiration;
 
+    @Value("${app.jwt.verified-cache-size:10000}")
+    private int verifiedCacheSize;
+
+    // Built once; both are immutable and safe to share across request threads
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    // Tokens that already passed signature verification, keyed by SHA-256 digest
+    // so raw bearer tokens are not retained; least recently used entries are evicted
+    private Map<String, VerifiedToken> verifiedTokens;
+
+    // auth.jwt.verifications by result: cached, parsed, expired, invalid, revoked
+    private Counter cachedCount;
+    private Counter parsedCount;
+    private Counter expiredCount;
+    private Counter invalidCount;
+    private Counter revokedCount;
+
+    @PostConstruct
+    public void init() {
+        cachedCount = verificationCounter("cached");
+        parsedCount = verificationCounter("parsed");
+        expiredCount = verificationCounter("expired");
+        invalidCount = verificationCounter("invalid");
+        revokedCount = verificationCounter("revoked");
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        verifiedTokens = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+                return size() > verifiedCacheSize;
+            }
+        });
+    }
+
+    private Counter verificationCounter(String result) {
+        return Counter.builder("auth.jwt.verifications")
+                .description("Bearer token checks by result")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        return signingKey;
     }
 
     /**
@@ -53,52 +112,129 @@ public class JwtService {
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(subject)
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
                 .signWith(getSigningKey(), SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    /**
+     * Verify a token and return its principal, or null when the token is
+     * invalid, expired or revoked. Signatures are checked once per token; later
+     * calls cost one digest, one cache lookup and the revocation filter check.
+     */
+    public VerifiedToken verifyToken(String token) {
+        VerifiedToken verified = verifySignature(token);
+        if (verified == null) {
+            return null;
+        }
+        if (tokenRevocationService.isRevoked(verified)) {
+            revokedCount.increment();
+            return null;
+        }
+        return verified;
+    }
+
+    private VerifiedToken verifySignature(String token) {
+        String digest = digest(token);
+        VerifiedToken cached = verifiedTokens.get(digest);
+        if (cached != null) {
+            if (cached.isExpired()) {
+                verifiedTokens.remove(digest);
+                expiredCount.increment();
+                return null;
+            }
+            cachedCount.increment();
+            return cached;
+        }
+
+        try {
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            VerifiedToken verified = new VerifiedToken(
+                    claims.getSubject(),
+                    claims.get("firstName", String.class),
+                    claims.get("lastName", String.class),
+                    claims.get("userId", Long.class),
+                    claims.get("role", String.class),
+                    claims.getId(),
+                    claims.getIssuedAt(),
+                    claims.getExpiration());
+            if (verified.isExpired()) {
+                expiredCount.increment();
+                return null;
+            }
+            verifiedTokens.put(digest, verified);
+            parsedCount.increment();
+            return verified;
+        } catch (ExpiredJwtException e) {
+            expiredCount.increment();
+            log.debug("Token expired: {}", e.getMessage());
+            return null;
+        } catch (Exception e) {
+            invalidCount.increment();
+            log.debug("Token verification failed: {}", e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * Extract fullName (firstName_lastName) from token
      */
     public String extractFullName(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return requireVerified(token).fullName();
     }
 
     /**
      * Extract firstName from token
      */
     public String extractFirstName(String token) {
-        return extractClaim(token, claims -> (String) claims.get("firstName"));
+        return requireVerified(token).firstName();
     }
 
     /**
      * Extract lastName from token
      */
     public String extractLastName(String token) {
-        return extractClaim(token, claims -> (String) claims.get("lastName"));
+        return requireVerified(token).lastName();
     }
 
     /**
      * Extract user ID from token
      */
     public Long extractUserId(String token) {
-        return extractClaim(token, claims -> claims.get("userId", Long.class));
+        return requireVerified(token).userId();
     }
 
     /**
      * Extract role from token
      */
     public String extractRole(String token) {
-        return extractClaim(token, claims -> claims.get("role", String.class));
+        return requireVerified(token).role();
     }
 
     /**
      * Extract expiration date from token
      */
     public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return requireVerified(token).expiration();
+    }
+
+    private VerifiedToken requireVerified(String token) {
+        VerifiedToken verified = verifyToken(token);
+        if (verified == null) {
+            throw new RuntimeException("Invalid JWT token");
+        }
+        return verified;
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 
     /**
@@ -114,11 +250,7 @@ public class JwtService {
      */
     private Claims extractAllClaims(String token) {
         try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            return parser.parseClaimsJws(token).getBody();
         } catch (Exception e) {
             log.error("Error extracting claims from token", e);
             throw new RuntimeException("Invalid JWT token");
@@ -129,23 +261,25 @@ public class JwtService {
      * Check if token is expired
      */
     public Boolean isTokenExpired(String token) {
-        try {
-            return extractExpiration(token).before(new Date());
-        } catch (Exception e) {
-            return true;
-        }
+        return verifyToken(token) == null;
     }
 
     /**
      * Validate token
      */
     public Boolean validateToken(String token, String fullName) {
-        try {
-            final String extractedFullName = extractFullName(token);
-            return (extractedFullName.equals(fullName) && !isTokenExpired(token));
-        } catch (Exception e) {
-            log.error("Token validation failed", e);
-            return false;
+        VerifiedToken verified = verifyToken(token);
+        return verified != null && verified.fullName().equals(fullName);
+    }
+
+    /**
+     * Principal, ID and lifetime of a token whose signature has been verified
+     */
+    public record VerifiedToken(String fullName, String firstName, String lastName, Long userId,
+                                String role, String tokenId, Date issuedAt, Date expiration) {
+
+        public boolean isExpired() {
+            return expiration != null && expiration.before(new Date());
         }
     }
 }
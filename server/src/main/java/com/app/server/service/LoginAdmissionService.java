@@ -0,0 +1,230 @@
+package com.app.server.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admission control for password logins. BCrypt checks run on a small
+ * dedicated pool with a bounded queue, so a login burst can use at most that
+ * many CPUs and hold at most pool plus queue servlet threads; anything beyond
+ * the queue is rejected at once.
+ * Repeated failures are throttled per name and client IP, and per client IP,
+ * with in-memory sliding windows checked before any hashing is done.
+ */
+@Service
+@Slf4j
+public class LoginAdmissionService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor hashingPool;
+    private final long waitTimeoutMs;
+    private final Duration failureWindow;
+    private final int maxFailuresPerName;
+    private final int maxFailuresPerIp;
+
+    private final Timer matchTimer;
+    private final Timer encodeTimer;
+    private final Timer queueWaitTimer;
+    private final Counter rejectedCount;
+
+    // Failure timestamps (epoch millis), oldest first, per "name|ip" and per "ip"
+    private final Map<String, Deque<Long>> failures = new ConcurrentHashMap<>();
+
+    public LoginAdmissionService(PasswordEncoder passwordEncoder,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.auth.login.hashing-threads:0}") int hashingThreads,
+                                 @Value("${app.auth.login.queue-capacity:32}") int queueCapacity,
+                                 @Value("${app.auth.login.wait-timeout-ms:10000}") long waitTimeoutMs,
+                                 @Value("${app.auth.login.failure-window:PT5M}") Duration failureWindow,
+                                 @Value("${app.auth.login.max-failures-per-name:5}") int maxFailuresPerName,
+                                 @Value("${app.auth.login.max-failures-per-ip:30}") int maxFailuresPerIp) {
+        this.passwordEncoder = passwordEncoder;
+        // Leave at least half the cores to the donation APIs
+        int threads = hashingThreads > 0 ? hashingThreads
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "login-hashing-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.hashingPool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        this.waitTimeoutMs = waitTimeoutMs;
+        this.failureWindow = failureWindow;
+        this.maxFailuresPerName = maxFailuresPerName;
+        this.maxFailuresPerIp = maxFailuresPerIp;
+
+        // BCrypt time on the pool, time spent queued before it, and turned-away logins
+        this.matchTimer = hashingTimer(meterRegistry, "match");
+        this.encodeTimer = hashingTimer(meterRegistry, "encode");
+        this.queueWaitTimer = Timer.builder("auth.login.queue.wait")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejectedCount = Counter.builder("auth.login.rejected").register(meterRegistry);
+        Gauge.builder("auth.login.queue.size", hashingPool, pool -> pool.getQueue().size())
+                .register(meterRegistry);
+        log.info("Login admission: {} hashing threads, queue capacity {}", threads, queueCapacity);
+    }
+
+    /**
+     * Seconds until the name/IP pair may try again, or 0 when not throttled
+     */
+    public long retryAfterSeconds(String name, String clientIp) {
+        long now = System.currentTimeMillis();
+        long byName = retryAfterMillis(nameKey(name, clientIp), maxFailuresPerName, now);
+        long byIp = retryAfterMillis(ipKey(clientIp), maxFailuresPerIp, now);
+        long millis = Math.max(byName, byIp);
+        return millis > 0 ? Math.max(1, TimeUnit.MILLISECONDS.toSeconds(millis + 999)) : 0;
+    }
+
+    /**
+     * Check a password on the hashing pool and wait for the result.
+     * Throws RejectedExecutionException when the queue is full or the check
+     * does not finish in time, so callers can answer 429 instead of piling up.
+     */
+    public boolean matchesPassword(String rawPassword, String encodedPassword) {
+        return runOnHashingPool(matchTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Hash a password on the hashing pool, with the same limits as matchesPassword
+     */
+    public String encodePassword(String rawPassword) {
+        return runOnHashingPool(encodeTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    private static Timer hashingTimer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("auth.password.hashing")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private <T> T runOnHashingPool(Timer hashingTimer, Callable<T> task) {
+        long queuedAt = System.nanoTime();
+        Future<T> result;
+        try {
+            result = hashingPool.submit(() -> {
+                queueWaitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                return hashingTimer.recordCallable(task);
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCount.increment();
+            throw new RejectedExecutionException("Login hashing queue is full", e);
+        }
+
+        try {
+            return result.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            rejectedCount.increment();
+            throw new RejectedExecutionException("Login hashing timed out", e);
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted waiting for login hashing", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    /**
+     * Record a failed login for the name/IP pair and the IP
+     */
+    public void recordFailure(String name, String clientIp) {
+        long now = System.currentTimeMillis();
+        record(nameKey(name, clientIp), now);
+        record(ipKey(clientIp), now);
+    }
+
+    /**
+     * Forget failures for the name/IP pair after a successful login
+     */
+    public void recordSuccess(String name, String clientIp) {
+        failures.remove(nameKey(name, clientIp));
+    }
+
+    /**
+     * Drop windows with no recent failures so the map stays bounded by active attackers
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void pruneExpiredFailures() {
+        long cutoff = System.currentTimeMillis() - failureWindow.toMillis();
+        failures.entrySet().removeIf(entry -> {
+            Deque<Long> window = entry.getValue();
+            synchronized (window) {
+                while (!window.isEmpty() && window.peekFirst() < cutoff) {
+                    window.pollFirst();
+                }
+                return window.isEmpty();
+            }
+        });
+    }
+
+    private void record(String key, long now) {
+        Deque<Long> window = failures.computeIfAbsent(key, k -> new ArrayDeque<>());
+        synchronized (window) {
+            window.addLast(now);
+        }
+    }
+
+    private long retryAfterMillis(String key, int maxFailures, long now) {
+        Deque<Long> window = failures.get(key);
+        if (window == null) {
+            return 0;
+        }
+        long cutoff = now - failureWindow.toMillis();
+        synchronized (window) {
+            while (!window.isEmpty() && window.peekFirst() < cutoff) {
+                window.pollFirst();
+            }
+            // Keep only what the limit needs, so a flood cannot grow the window
+            while (window.size() > maxFailures) {
+                window.pollFirst();
+            }
+            if (window.size() < maxFailures) {
+                return 0;
+            }
+            return window.peekFirst() + failureWindow.toMillis() - now;
+        }
+    }
+
+    private static String nameKey(String name, String clientIp) {
+        return "name|" + (name != null ? name.toLowerCase(Locale.ROOT) : "") + "|" + clientIp;
+    }
+
+    private static String ipKey(String clientIp) {
+        return "ip|" + clientIp;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashingPool.shutdownNow();
+    }
+}
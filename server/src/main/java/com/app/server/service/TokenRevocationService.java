@@ -0,0 +1,180 @@
+package com.app.server.service;
+
+import com.app.server.repository.TokenRevocationRepository;
+import com.app.server.security.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Revocation of issued JWTs, by token ID (logout) or by user (deactivation,
+ * password change). Every authenticated request asks isRevoked(); the answer
+ * comes from an in-memory Bloom filter of revoked keys, and the table is only
+ * queried when the filter reports a possible hit. The filter is rebuilt from
+ * the table on a schedule, which also picks up revocations made by other
+ * instances and drops entries whose tokens have expired.
+ */
+@Service
+@Slf4j
+public class TokenRevocationService {
+
+    private final TokenRevocationRepository tokenRevocationRepository;
+    private final Duration tokenLifetime;
+    private final int expectedEntries;
+    private final double falsePositiveRate;
+
+    // Guards swapping the filter against concurrent adds, so a revocation
+    // committed while a rebuild is reading the table is not lost
+    private final Object filterLock = new Object();
+    private volatile BloomFilter filter;
+
+    // Table answers for filter hits, so a false positive costs one query per token
+    // rather than one per request. Cleared whenever a revocation is added.
+    private final Map<String, Boolean> confirmed;
+
+    // Table lookups after a filter hit, by whether the token really was revoked
+    private final Counter revokedLookups;
+    private final Counter falsePositiveLookups;
+
+    public TokenRevocationService(TokenRevocationRepository tokenRevocationRepository,
+                                  @Value("${app.jwt.expiration:86400000}") long jwtExpirationMs,
+                                  @Value("${app.auth.revocation.expected-entries:10000}") int expectedEntries,
+                                  @Value("${app.auth.revocation.false-positive-rate:0.01}") double falsePositiveRate,
+                                  @Value("${app.auth.revocation.confirmed-cache-size:10000}") int confirmedCacheSize,
+                                  MeterRegistry meterRegistry) {
+        this.tokenRevocationRepository = tokenRevocationRepository;
+        this.tokenLifetime = Duration.ofMillis(jwtExpirationMs);
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(expectedEntries, falsePositiveRate);
+        this.confirmed = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > confirmedCacheSize;
+            }
+        });
+        this.revokedLookups = Counter.builder("auth.revocation.lookups").tag("result", "revoked")
+                .register(meterRegistry);
+        this.falsePositiveLookups = Counter.builder("auth.revocation.lookups").tag("result", "false_positive")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether a verified token has been revoked, by its ID or through its user
+     */
+    public boolean isRevoked(JwtService.VerifiedToken token) {
+        BloomFilter current = filter;
+        boolean tokenHit = token.tokenId() != null
+                && current.mightContain(TokenRevocationRepository.tokenKey(token.tokenId()));
+        boolean userHit = current.mightContain(TokenRevocationRepository.userKey(token.fullName()));
+        if (!tokenHit && !userHit) {
+            return false;
+        }
+
+        String cacheKey = token.tokenId() != null ? token.tokenId() : token.fullName() + "@" + token.issuedAt();
+        Boolean known = confirmed.get(cacheKey);
+        if (known != null) {
+            return known;
+        }
+        // Tokens without a jti (issued before revocation existed) are matched by user only.
+        // iat has whole-second precision, so a token issued in the same second as a
+        // user revocation counts as revoked and that user just logs in again.
+        boolean revoked = tokenRevocationRepository.isRevoked(
+                token.tokenId() != null ? token.tokenId() : "", token.fullName(), toLocalDateTime(token.issuedAt()));
+        confirmed.put(cacheKey, revoked);
+        (revoked ? revokedLookups : falsePositiveLookups).increment();
+        return revoked;
+    }
+
+    /**
+     * Revoke one token until it expires
+     */
+    public void revokeToken(JwtService.VerifiedToken token) {
+        if (token.tokenId() == null) {
+            // Nothing to key on; a user-wide revocation is the only way to cut it off
+            return;
+        }
+        LocalDateTime expiresAt = token.expiration() != null
+                ? toLocalDateTime(token.expiration())
+                : LocalDateTime.now().plus(tokenLifetime);
+        tokenRevocationRepository.saveTokenRevocation(token.tokenId(), LocalDateTime.now(), expiresAt);
+        added(TokenRevocationRepository.tokenKey(token.tokenId()));
+        log.info("Revoked token {} of {}", token.tokenId(), token.fullName());
+    }
+
+    /**
+     * Revoke every token issued to a user so far
+     */
+    public void revokeUser(String fullName) {
+        LocalDateTime now = LocalDateTime.now();
+        tokenRevocationRepository.saveUserRevocation(fullName, now, now.plus(tokenLifetime));
+        added(TokenRevocationRepository.userKey(fullName));
+        log.info("Revoked all tokens of {}", fullName);
+    }
+
+    /**
+     * Rebuild the filter from the table, purging revocations whose tokens have expired
+     */
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${app.auth.revocation.rebuild-interval-ms:300000}",
+               initialDelayString = "${app.auth.revocation.rebuild-interval-ms:300000}")
+    public void rebuild() {
+        LocalDateTime now = LocalDateTime.now();
+        tokenRevocationRepository.purgeExpired(now);
+        synchronized (filterLock) {
+            List<String> keys = tokenRevocationRepository.findActiveKeys(now);
+
+            // Leave headroom so revocations added before the next rebuild keep the error rate
+            BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, keys.size() * 2), falsePositiveRate);
+            keys.forEach(rebuilt::add);
+            filter = rebuilt;
+            confirmed.clear();
+            log.debug("Rebuilt token revocation filter with {} entries", keys.size());
+        }
+    }
+
+    /**
+     * Make a new revocation visible now, and again after the surrounding
+     * transaction completes: a lookup from another thread before the commit
+     * cannot see the row and would cache "not revoked", and a rebuild that read
+     * the table before the commit would drop the key from the filter
+     */
+    private void added(String key) {
+        addToFilter(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    addToFilter(key);
+                }
+            });
+        }
+    }
+
+    private void addToFilter(String key) {
+        synchronized (filterLock) {
+            filter.add(key);
+            confirmed.clear();
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(Date date) {
+        return date == null ? LocalDateTime.of(1970, 1, 1, 0, 0)
+                : LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
+    }
+}
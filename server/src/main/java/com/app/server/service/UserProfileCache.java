@@ -0,0 +1,116 @@
+package com.app.server.service;
+
+import com.app.server.model.User;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU cache of user profiles keyed by full name (firstName_lastName),
+ * so /me and /validate are answered without a user_table query. Entries are
+ * invalidated by user writes and expire after a TTL as a safety net for
+ * changes made outside UserService. Password hashes are never cached.
+ */
+@Component
+@Slf4j
+public class UserProfileCache {
+
+    private final Duration ttl;
+    private final Map<String, Entry> profiles;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public UserProfileCache(@Value("${app.auth.profile-cache.max-size:5000}") int maxSize,
+                            @Value("${app.auth.profile-cache.ttl:PT10M}") Duration ttl,
+                            MeterRegistry meterRegistry) {
+        this.ttl = ttl;
+        this.profiles = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        });
+        FunctionCounter.builder("auth.profile.cache.requests", hits, LongAdder::sum).tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("auth.profile.cache.requests", misses, LongAdder::sum).tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("auth.profile.cache.size", profiles, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Cached profile for a full name, loading and caching it on a miss.
+     * Unknown users are not cached.
+     */
+    public Optional<UserProfile> get(String fullName, Supplier<Optional<User>> loader) {
+        Entry entry = profiles.get(fullName);
+        long now = System.nanoTime();
+        if (entry != null && now - entry.loadedAt() < ttl.toNanos()) {
+            hits.increment();
+            return Optional.of(entry.profile());
+        }
+
+        misses.increment();
+        Optional<UserProfile> loaded = loader.get().map(UserProfile::new);
+        loaded.ifPresent(profile -> profiles.put(fullName, new Entry(profile, now)));
+        return loaded;
+    }
+
+    /**
+     * Drop a user's profile now and again once the surrounding transaction
+     * commits, so a concurrent reader cannot re-cache the pre-commit row
+     */
+    public void invalidate(String fullName) {
+        profiles.remove(fullName);
+        invalidations.increment();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    profiles.remove(fullName);
+                }
+            });
+        }
+    }
+
+    /**
+     * Hit/miss counters and current size
+     */
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), invalidations.sum(), profiles.size());
+    }
+
+    private record Entry(UserProfile profile, long loadedAt) {}
+
+    /**
+     * The user fields /me and /validate need, without the password hash
+     */
+    public record UserProfile(Long id, String firstName, String lastName, User.Role role,
+                              String phoneNumber, boolean active) {
+
+        UserProfile(User user) {
+            this(user.getId(), user.getFirstName(), user.getLastName(), user.getRole(),
+                    user.getPhoneNumber(), Boolean.TRUE.equals(user.getIsActive()));
+        }
+
+        public String fullName() {
+            return firstName + "_" + lastName;
+        }
+    }
+
+    public record CacheStats(long hits, long misses, long invalidations, int size) {}
+}
@@ -8,10 +8,12 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 @Service
 @RequiredArgsConstructor
@@ -22,10 +24,17 @@ public class UserService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
+    private final LoginAdmissionService loginAdmissionService;
+    private final UserProfileCache userProfileCache;
+    private final TokenRevocationService tokenRevocationService;
 
     /**
-     * Authenticate user and return login response with role-based routing
+     * Authenticate user and return login response with role-based routing.
+     * Opens no transaction of its own: the user is loaded in a short one, no
+     * connection is held while the hash is checked on the login pool, which
+     * can queue, and a rehash is written in another short one.
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public LoginResponse authenticateUser(LoginRequest loginRequest) {
         try {
             // Validate name format
@@ -48,11 +57,17 @@ public class UserService {
 
             User user = userOptional.get();
 
-            if (!passwordEncoder.matches(loginRequest.getPassword(), user.getPassword())) {
+            // Hashing runs on the bounded login pool, not on this servlet thread's CPU budget
+            if (!loginAdmissionService.matchesPassword(loginRequest.getPassword(), user.getPassword())) {
                 log.warn("Invalid password for user: {}_{}", firstName, lastName);
                 return LoginResponse.failure("Invalid name or password");
             }
 
+            // Upgrade on match: bring the stored hash to the calibrated cost while the plain password is at hand
+            if (passwordEncoder.upgradeEncoding(user.getPassword())) {
+                rehashPassword(user, loginRequest.getPassword());
+            }
+
             // Generate JWT token
             String token = jwtService.generateToken(user);
 
@@ -63,12 +78,32 @@ public class UserService {
 
             return LoginResponse.success(token, firstName, lastName, user.getRole(), redirectTo);
 
+        } catch (RejectedExecutionException e) {
+            // Admission control: the controller answers 429
+            throw e;
         } catch (Exception e) {
             log.error("Error during authentication for user: {}", loginRequest.getName(), e);
             return LoginResponse.failure("Authentication failed. Please try again.");
         }
     }
 
+    /**
+     * Replace a stored hash made with an outdated cost; failure only delays the upgrade.
+     * The hash is computed first and written in its own short transaction.
+     */
+    private void rehashPassword(User user, String rawPassword) {
+        try {
+            String newHash = loginAdmissionService.encodePassword(rawPassword);
+            if (userRepository.replacePasswordHash(user.getId(), user.getPassword(), newHash) == 0) {
+                log.info("Password of user {}_{} changed during login; not rehashed", user.getFirstName(), user.getLastName());
+                return;
+            }
+            log.info("Rehashed password for user {}_{} with current cost", user.getFirstName(), user.getLastName());
+        } catch (Exception e) {
+            log.warn("Could not rehash password for user {}_{}: {}", user.getFirstName(), user.getLastName(), e.getMessage());
+        }
+    }
+
     /**
      * Determine redirect path based on user role
      */
@@ -102,6 +137,7 @@ public class UserService {
         }
 
         User savedUser = userRepository.save(user);
+        userProfileCache.invalidate(savedUser.getFirstName() + "_" + savedUser.getLastName());
         log.info("User created successfully: {}_{}", savedUser.getFirstName(), savedUser.getLastName());
 
         return savedUser;
@@ -115,6 +151,15 @@ public class UserService {
         return userRepository.findByFirstNameAndLastName(firstName, lastName);
     }
 
+    /**
+     * Find a user's profile through the profile cache; a hit needs no database access
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Optional<UserProfileCache.UserProfile> findProfile(String firstName, String lastName) {
+        return userProfileCache.get(firstName + "_" + lastName,
+                () -> userRepository.findByFirstNameAndLastName(firstName, lastName));
+    }
+
     /**
      * Get all active users
      */
@@ -132,7 +177,7 @@ public class UserService {
     }
 
     /**
-     * Deactivate user by firstName and lastName
+     * Deactivate user by firstName and lastName; tokens already issued stop working
      */
     public void deactivateUser(String firstName, String lastName) {
         Optional<User> userOptional = userRepository.findByFirstNameAndLastName(firstName, lastName);
@@ -140,12 +185,14 @@ public class UserService {
             User user = userOptional.get();
             user.setIsActive(false);
             userRepository.save(user);
+            userProfileCache.invalidate(firstName + "_" + lastName);
+            tokenRevocationService.revokeUser(firstName + "_" + lastName);
             log.info("User deactivated: {}_{}", firstName, lastName);
         }
     }
 
     /**
-     * Update user password by firstName and lastName
+     * Update user password by firstName and lastName; tokens already issued stop working
      */
     public void updatePassword(String firstName, String lastName, String newPassword) {
         Optional<User> userOptional = userRepository.findByFirstNameAndLastName(firstName, lastName);
@@ -153,6 +200,8 @@ public class UserService {
             User user = userOptional.get();
             user.setPassword(passwordEncoder.encode(newPassword));
             userRepository.save(user);
+            userProfileCache.invalidate(firstName + "_" + lastName);
+            tokenRevocationService.revokeUser(firstName + "_" + lastName);
             log.info("Password updated for user: {}_{}", firstName, lastName);
         }
     }
@@ -3,6 +3,9 @@ package com.app.server;
 import com.app.server.dto.LoginRequest;
 import com.app.server.model.User;
 import com.app.server.repository.UserRepository;
+import com.app.server.service.JwtService;
+import com.app.server.service.UserProfileCache;
+import com.app.server.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,6 +13,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
@@ -17,6 +21,10 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.context.WebApplicationContext;
 
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -37,6 +45,15 @@ public class AuthControllerTest {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private UserProfileCache userProfileCache;
+
     private MockMvc mockMvc;
     private ObjectMapper objectMapper;
 
@@ -119,4 +136,183 @@ public class AuthControllerTest {
                 .andExpect(jsonPath("$.success").value(false))
                 .andExpect(jsonPath("$.message").value("Invalid name format. Please use 'firstName_lastName' format."));
     }
+
+    @Test
+    void testVerifiedTokenIsReusedAndTamperedTokenRejected() throws Exception {
+        LoginRequest loginRequest = new LoginRequest("Test_User", "testpass");
+        String body = mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String token = objectMapper.readTree(body).get("token").asText();
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/api/auth/validate").header("Authorization", "Bearer " + token))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.valid").value(true))
+                    .andExpect(jsonPath("$.fullName").value("Test_User"))
+                    .andExpect(jsonPath("$.role").value("USER"));
+        }
+
+        // A cached genuine token must not make a modified signature acceptable
+        String tampered = token.substring(0, token.length() - 2)
+                + (token.endsWith("AA") ? "BB" : "AA");
+        mockMvc.perform(post("/api/auth/validate").header("Authorization", "Bearer " + tampered))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void testRepeatedFailuresAreThrottled() throws Exception {
+        LoginRequest loginRequest = new LoginRequest("Throttle_Target", "wrongpass");
+        String content = objectMapper.writeValueAsString(loginRequest);
+
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(post("/api/auth/login")
+                    .with(request -> { request.setRemoteAddr("10.9.8.7"); return request; })
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(content))
+                    .andExpect(status().isUnauthorized());
+        }
+
+        mockMvc.perform(post("/api/auth/login")
+                .with(request -> { request.setRemoteAddr("10.9.8.7"); return request; })
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(content))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"))
+                .andExpect(jsonPath("$.success").value(false));
+
+        // Other clients are not affected by one client's failures
+        mockMvc.perform(post("/api/auth/login")
+                .with(request -> { request.setRemoteAddr("10.9.8.6"); return request; })
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(content))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void testPasswordWithOutdatedCostIsRehashedOnLogin() throws Exception {
+        User user = new User();
+        user.setFirstName("Rehash");
+        user.setLastName("User");
+        user.setPassword(new BCryptPasswordEncoder(4).encode("rehashpass"));
+        user.setRole(User.Role.USER);
+        user.setPhoneNumber("1234567891");
+        user.setIsActive(true);
+        userRepository.save(user);
+
+        // Hashed with a higher cost than the current one, e.g. on faster hardware: kept as it is
+        User stronger = new User();
+        stronger.setFirstName("Stronger");
+        stronger.setLastName("User");
+        String strongerHash = new BCryptPasswordEncoder(6).encode("strongerpass");
+        stronger.setPassword(strongerHash);
+        stronger.setRole(User.Role.USER);
+        stronger.setPhoneNumber("1234567895");
+        stronger.setIsActive(true);
+        userRepository.save(stronger);
+
+        for (LoginRequest loginRequest : List.of(new LoginRequest("Rehash_User", "rehashpass"),
+                new LoginRequest("Stronger_User", "strongerpass"))) {
+            mockMvc.perform(post("/api/auth/login")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(loginRequest)))
+                    .andExpect(status().isOk());
+        }
+
+        String stored = userRepository.findByFirstNameAndLastName("Rehash", "User").orElseThrow().getPassword();
+        assertTrue(stored.startsWith("$2a$05$"));
+        assertTrue(passwordEncoder.matches("rehashpass", stored));
+        assertEquals(strongerHash,
+                userRepository.findByFirstNameAndLastName("Stronger", "User").orElseThrow().getPassword());
+    }
+
+    @Test
+    void testProfileCacheServesMeAndIsInvalidatedOnProfileEdit() throws Exception {
+        User user = new User();
+        user.setFirstName("Cache");
+        user.setLastName("User");
+        user.setPassword(passwordEncoder.encode("cachepass"));
+        user.setRole(User.Role.USER);
+        user.setPhoneNumber("1234567892");
+        user.setIsActive(true);
+        userService.createUser(user);
+        String token = jwtService.generateToken(user);
+
+        long hitsBefore = userProfileCache.stats().hits();
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/api/auth/me").header("Authorization", "Bearer " + token))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.fullName").value("Cache_User"))
+                    .andExpect(jsonPath("$.isActive").value(true));
+        }
+        assertTrue(userProfileCache.stats().hits() > hitsBefore);
+
+        // A profile edit leaves the token valid, and the next /me sees it once the profile is invalidated
+        User edited = userRepository.findByFirstNameAndLastName("Cache", "User").orElseThrow();
+        edited.setPhoneNumber("1234567899");
+        userRepository.save(edited);
+        userProfileCache.invalidate("Cache_User");
+
+        mockMvc.perform(get("/api/auth/me").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.phoneNumber").value("1234567899"))
+                .andExpect(jsonPath("$.isActive").value(true));
+        mockMvc.perform(post("/api/auth/validate").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.valid").value(true));
+
+        // An inactive account whose token was never revoked is still turned away by /validate
+        User inactive = new User();
+        inactive.setFirstName("Inactive");
+        inactive.setLastName("User");
+        inactive.setPassword(passwordEncoder.encode("inactivepass"));
+        inactive.setRole(User.Role.USER);
+        inactive.setPhoneNumber("1234567894");
+        inactive.setIsActive(false);
+        userService.createUser(inactive);
+        String inactiveToken = jwtService.generateToken(inactive);
+
+        mockMvc.perform(get("/api/auth/me").header("Authorization", "Bearer " + inactiveToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.isActive").value(false));
+        mockMvc.perform(post("/api/auth/validate").header("Authorization", "Bearer " + inactiveToken))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.valid").value(false));
+    }
+
+    @Test
+    void testDeactivatedUserAndLoggedOutTokensAreRevoked() throws Exception {
+        User user = new User();
+        user.setFirstName("Revoked");
+        user.setLastName("User");
+        user.setPassword(passwordEncoder.encode("revokedpass"));
+        user.setRole(User.Role.USER);
+        user.setPhoneNumber("1234567893");
+        user.setIsActive(true);
+        userService.createUser(user);
+
+        // Logout revokes only the presented token
+        String loggedOut = jwtService.generateToken(user);
+        String kept = jwtService.generateToken(user);
+        mockMvc.perform(post("/api/auth/logout").header("Authorization", "Bearer " + loggedOut))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/donations").param("from", "2024-01-01").param("to", "2024-01-31")
+                        .header("Authorization", "Bearer " + loggedOut))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/donations").param("from", "2024-01-01").param("to", "2024-01-31")
+                        .header("Authorization", "Bearer " + kept))
+                .andExpect(status().isOk());
+
+        // Deactivation revokes every token the user already holds
+        userService.deactivateUser("Revoked", "User");
+        mockMvc.perform(get("/api/donations").param("from", "2024-01-01").param("to", "2024-01-31")
+                        .header("Authorization", "Bearer " + kept))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/auth/me").header("Authorization", "Bearer " + kept))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/api/auth/validate").header("Authorization", "Bearer " + kept))
+                .andExpect(status().isUnauthorized());
+    }
 }
@@ -0,0 +1,836 @@
+package com.app.server;
+
+import com.app.server.dto.DonationRequest;
+import com.app.server.repository.DonationRollupRepository;
+import com.app.server.repository.DonationYearVersions;
+import com.app.server.service.DonationAnalyticsCache;
+import com.app.server.service.DonationService;
+import com.app.server.service.DonationTableService;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureWebMvc
+@ActiveProfiles("test")
+public class DonationControllerTest {
+
+    private static final RequestPostProcessor ADMIN = user("Page_Admin").roles("ADMIN");
+    private static final RequestPostProcessor COLLECTOR = user("Page_Collector").roles("USER");
+    private static final RequestPostProcessor RANGE_COLLECTOR = user("Range_Collector").roles("USER");
+    private static final RequestPostProcessor BATCH_COLLECTOR = user("Batch_Collector").roles("USER");
+    private static final RequestPostProcessor METRICS_COLLECTOR = user("Metrics_Collector").roles("USER");
+    private static final RequestPostProcessor SMILE_COLLECTOR = user("Smile_Collector").roles("USER");
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private DonationTableService donationTableService;
+
+    @Autowired
+    private DonationService donationService;
+
+    private MockMvc mockMvc;
+    private ObjectMapper objectMapper;
+    private int year;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders
+                .webAppContextSetup(context)
+                .apply(springSecurity())
+                .build();
+        objectMapper = new ObjectMapper();
+        year = LocalDate.now().getYear();
+    }
+
+    private void createDonation(RequestPostProcessor as, String donorName) throws Exception {
+        DonationRequest request = new DonationRequest(donorName, "Main Road, Pune", "9876543210",
+                new BigDecimal("101.00"), "Cash", null);
+
+        mockMvc.perform(post("/api/donations")
+                .with(as)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated());
+    }
+
+    @Test
+    void testKeysetPaginationWalksEveryRowOnce() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            createDonation(COLLECTOR, "Paged Donor " + i);
+        }
+
+        Set<Long> seen = new HashSet<>();
+        String pageToken = null;
+        int pages = 0;
+        do {
+            var request = get("/api/donations/" + year).with(COLLECTOR).param("limit", "2");
+            if (pageToken != null) {
+                request.param("pageToken", pageToken);
+            }
+            String body = mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.success").value(true))
+                    .andReturn().getResponse().getContentAsString();
+
+            JsonNode json = objectMapper.readTree(body);
+            json.get("donations").forEach(d -> assertTrue(seen.add(d.get("id").asLong())));
+            pageToken = json.hasNonNull("nextPageToken") ? json.get("nextPageToken").asText() : null;
+            assertEquals(pageToken != null, json.get("hasMore").asBoolean());
+            pages++;
+        } while (pageToken != null);
+
+        assertEquals(5, seen.size());
+        assertEquals(3, pages);
+    }
+
+    @Test
+    void testUnpagedResponseKeepsOriginalShape() throws Exception {
+        createDonation(ADMIN, "Unpaged Donor");
+
+        String body = mockMvc.perform(get("/api/donations/" + year).with(ADMIN))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andReturn().getResponse().getContentAsString();
+
+        JsonNode json = objectMapper.readTree(body);
+        assertFalse(json.has("nextPageToken"));
+        assertFalse(json.has("hasMore"));
+    }
+
+    @Test
+    void testNdjsonExportWritesOneRowPerLine() throws Exception {
+        createDonation(ADMIN, "Export Donor");
+
+        MvcResult result = mockMvc.perform(get("/api/donations/all/export").with(ADMIN).param("format", "ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        // Every line is a donation, and a complete export terminates the last one
+        assertTrue(body.endsWith("\n"));
+        String[] lines = body.split("\n");
+        assertTrue(lines.length >= 1);
+        for (String line : lines) {
+            assertTrue(objectMapper.readTree(line).has("donorName"));
+        }
+    }
+
+    @Test
+    void testExportFailingMidStreamIsNotWellFormed() throws Exception {
+        createDonation(ADMIN, "Export Donor Before Failure");
+        // A row the mapper cannot read, in an older year than the one above
+        donationTableService.ensureTableExistsForYear(2003);
+        jdbcTemplate.update("INSERT INTO donations_2003 (donor_name, donor_address, donor_phone, donation_amount,"
+                + " created_at, created_date, created_by) VALUES ('Broken Row', 'Pune', '9876543210', 10, NULL,"
+                + " DATE '2003-05-01', 'Export_Collector')");
+        try {
+            for (DonationService.ExportFormat format : DonationService.ExportFormat.values()) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                assertThrows(RuntimeException.class, () -> donationService.exportAllDonations(out, format));
+
+                String body = out.toString(StandardCharsets.UTF_8);
+                assertTrue(body.contains("Export Donor Before Failure"));
+                if (format == DonationService.ExportFormat.JSON_ARRAY) {
+                    assertFalse(body.stripTrailing().endsWith("]"));
+                    assertThrows(IOException.class, () -> objectMapper.readTree(body));
+                } else {
+                    assertFalse(body.endsWith("\n"));
+                }
+            }
+        } finally {
+            jdbcTemplate.update("DELETE FROM donations_2003 WHERE donor_name = 'Broken Row'");
+        }
+    }
+
+    @Test
+    void testAllDonationsWithLimitReturnsNewestFirst() throws Exception {
+        createDonation(ADMIN, "Older Donor");
+        createDonation(ADMIN, "Newest Donor");
+
+        mockMvc.perform(get("/api/donations/all").with(ADMIN).param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalCount").value(2));
+
+        String body = mockMvc.perform(get("/api/donations/all").with(ADMIN).param("limit", "500"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andReturn().getResponse().getContentAsString();
+
+        // Other tests may have written to other years; check global ordering instead of positions
+        JsonNode donations = objectMapper.readTree(body).get("donations");
+        int newest = -1;
+        int older = -1;
+        for (int i = 0; i < donations.size(); i++) {
+            JsonNode donation = donations.get(i);
+            if (i > 0) {
+                JsonNode previous = donations.get(i - 1);
+                String previousKey = previous.get("createdDate").asText() + previous.get("createdAt").asText();
+                String key = donation.get("createdDate").asText() + donation.get("createdAt").asText();
+                assertTrue(previousKey.compareTo(key) >= 0);
+            }
+            if (donation.get("donorName").asText().equals("Newest Donor")) {
+                newest = i;
+            } else if (donation.get("donorName").asText().equals("Older Donor")) {
+                older = i;
+            }
+        }
+        assertTrue(newest >= 0 && newest < older);
+    }
+
+    @Test
+    void testDateRangeOnlyReturnsDonationsInRange() throws Exception {
+        createDonation(RANGE_COLLECTOR, "Range Donor");
+        LocalDate today = LocalDate.now();
+
+        mockMvc.perform(get("/api/donations").with(RANGE_COLLECTOR)
+                .param("from", today.minusDays(7).toString())
+                .param("to", today.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.donations[?(@.donorName == 'Range Donor')]").exists());
+
+        mockMvc.perform(get("/api/donations").with(RANGE_COLLECTOR)
+                .param("from", "2000-01-01")
+                .param("to", "2000-12-31"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalCount").value(0));
+
+        mockMvc.perform(get("/api/donations").with(RANGE_COLLECTOR)
+                .param("from", today.toString())
+                .param("to", today.minusDays(1).toString()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testDeltaSyncReportsCreatesAndDeletes() throws Exception {
+        String cursor = syncCursor();
+
+        createDonation(ADMIN, "Sync Donor");
+        Thread.sleep(5);
+        String body = mockMvc.perform(get("/api/donations/changes").with(ADMIN).param("since", cursor))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode changes = objectMapper.readTree(body);
+        JsonNode created = null;
+        for (JsonNode donation : changes.get("changed")) {
+            if (donation.get("donorName").asText().equals("Sync Donor")) {
+                created = donation;
+            }
+        }
+        assertTrue(created != null);
+        cursor = changes.get("nextCursor").asText();
+
+        long id = created.get("id").asLong();
+        mockMvc.perform(delete("/api/donations/" + year + "/" + id).with(ADMIN))
+                .andExpect(status().isOk());
+        Thread.sleep(5);
+
+        mockMvc.perform(get("/api/donations/changes").with(ADMIN).param("since", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.fullResyncRequired").value(false))
+                .andExpect(jsonPath("$.deleted[?(@.id == " + id + ")].year").value(year));
+    }
+
+    @Test
+    void testDeltaSyncPagesDeliverEveryChangeOnce() throws Exception {
+        DonationService target = AopTestUtils.getTargetObject(donationService);
+        ReflectionTestUtils.setField(target, "syncMaxChanges", 3);
+        try {
+            String cursor = syncCursor();
+            for (int i = 0; i < 4; i++) {
+                createDonation(ADMIN, "Paged Sync Donor " + i);
+            }
+            // One transaction, so these may all carry the same change time
+            Map<String, Object> batch = Map.of("items", List.of(
+                    batchItem("paged-sync-1", null, "Paged Sync Batch Donor 1", "9876543210"),
+                    batchItem("paged-sync-2", null, "Paged Sync Batch Donor 2", "9876543210"),
+                    batchItem("paged-sync-3", null, "Paged Sync Batch Donor 3", "9876543210"),
+                    batchItem("paged-sync-4", null, "Paged Sync Batch Donor 4", "9876543210")));
+            mockMvc.perform(post("/api/donations/batch")
+                    .with(ADMIN)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(batch)))
+                    .andExpect(jsonPath("$.created").value(4));
+            Thread.sleep(5);
+
+            List<String> delivered = new ArrayList<>();
+            int pages = 0;
+            boolean hasMore = true;
+            while (hasMore) {
+                String body = mockMvc.perform(get("/api/donations/changes").with(ADMIN).param("since", cursor))
+                        .andExpect(status().isOk())
+                        .andReturn().getResponse().getContentAsString();
+                JsonNode changes = objectMapper.readTree(body);
+                for (JsonNode donation : changes.get("changed")) {
+                    delivered.add(donation.get("donorName").asText());
+                }
+                String next = changes.get("nextCursor").asText();
+                hasMore = changes.get("hasMore").asBoolean();
+                assertTrue(!hasMore || !next.equals(cursor));
+                cursor = next;
+                assertTrue(++pages <= 8);
+            }
+
+            assertTrue(pages > 1);
+            assertEquals(8, delivered.size());
+            assertEquals(8, new HashSet<>(delivered).size());
+        } finally {
+            ReflectionTestUtils.setField(target, "syncMaxChanges", 1000);
+        }
+    }
+
+    private String syncCursor() throws Exception {
+        String body = mockMvc.perform(get("/api/donations/changes").with(ADMIN))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("nextCursor").asText();
+    }
+
+    @Test
+    void testStatsRollupFollowsWrites() throws Exception {
+        BigDecimal before = statsTotalAmount();
+        createDonation(ADMIN, "Rollup Donor");
+        assertEquals(0, before.add(new BigDecimal("101.00")).compareTo(statsTotalAmount()));
+
+        String body = mockMvc.perform(get("/api/donations/" + year).with(ADMIN).param("limit", "1"))
+                .andReturn().getResponse().getContentAsString();
+        long id = objectMapper.readTree(body).get("donations").get(0).get("id").asLong();
+
+        DonationRequest update = new DonationRequest("Rollup Donor", "Main Road, Pune", "9876543210",
+                new BigDecimal("251.00"), "Online Transfer", null);
+        mockMvc.perform(put("/api/donations/" + year + "/" + id)
+                .with(ADMIN)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(update)))
+                .andExpect(status().isOk());
+        assertEquals(0, before.add(new BigDecimal("251.00")).compareTo(statsTotalAmount()));
+
+        mockMvc.perform(delete("/api/donations/" + year + "/" + id).with(ADMIN))
+                .andExpect(status().isOk());
+        assertEquals(0, before.compareTo(statsTotalAmount()));
+
+        mockMvc.perform(post("/api/donations/stats/rebuild").with(ADMIN).param("year", String.valueOf(year)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true));
+        assertEquals(0, before.compareTo(statsTotalAmount()));
+    }
+
+    private BigDecimal statsTotalAmount() throws Exception {
+        String body = mockMvc.perform(get("/api/donations/" + year + "/stats").with(ADMIN))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("totalAmount").decimalValue();
+    }
+
+    @Test
+    void testInvalidPageTokenIsRejected() throws Exception {
+        mockMvc.perform(get("/api/donations/" + year).with(ADMIN).param("pageToken", "not-a-token"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false));
+    }
+
+    @Test
+    void testBatchUploadIsIdempotent() throws Exception {
+        String lastYear = LocalDate.now().minusYears(1).toString();
+        Map<String, Object> batch = Map.of("items", List.of(
+                batchItem("receipt-1", null, "Batch Donor One", "9876543210"),
+                batchItem("receipt-2", lastYear, "Batch Donor Two", "9876543210"),
+                batchItem("receipt-1", null, "Batch Donor One", "9876543210"),
+                batchItem("receipt-3", null, "Batch Donor Three", "12345")));
+        String content = objectMapper.writeValueAsString(batch);
+
+        mockMvc.perform(post("/api/donations/batch")
+                .with(BATCH_COLLECTOR)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(content))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.duplicates").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.results[1].year").value(year - 1))
+                .andExpect(jsonPath("$.results[3].status").value("FAILED"));
+
+        // Replaying the same upload creates nothing new
+        String body = mockMvc.perform(post("/api/donations/batch")
+                .with(BATCH_COLLECTOR)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(content))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(0))
+                .andExpect(jsonPath("$.duplicates").value(3))
+                .andReturn().getResponse().getContentAsString();
+        long id = objectMapper.readTree(body).get("results").get(0).get("id").asLong();
+
+        mockMvc.perform(get("/api/donations/" + year).with(BATCH_COLLECTOR))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalCount").value(1))
+                .andExpect(jsonPath("$.donations[0].id").value(id));
+    }
+
+    private Map<String, Object> batchItem(String key, String receiptDate, String donorName, String phone) {
+        Map<String, Object> item = new HashMap<>();
+        item.put("idempotencyKey", key);
+        item.put("receiptDate", receiptDate);
+        item.put("donation", new DonationRequest(donorName, "Market Yard, Satara", phone,
+                new BigDecimal("75.00"), "Cash", null));
+        return item;
+    }
+
+    @Test
+    void testCsvImportRoutesByYearAndResumes() throws Exception {
+        String header = "Receipt Date,Donor Name,Donor Address,Donor Phone,Amount,Type,Notes,Collector\n";
+        String firstRows = """
+                2011-09-02,Import Donor One,"12, Shaniwar Peth, Pune",9876543210,"1,001",Cash,,Import_Collector
+                05/09/2011,Import Donor Two,Kasba Peth Pune,9876543210,501,Cheque,"Said \"\"shubh\"\"",Import_Collector
+                """;
+        String restRows = """
+                2012-08-30,Import Donor Three,Kothrud Pune,12345,101,Cash,,Import_Collector
+                2012-09-01,Import Donor Four,Girgaon Mumbai,9876543210,251,,,
+                """;
+
+        // First upload stops after two rows, as if the connection dropped
+        mockMvc.perform(post("/api/donations/import").with(ADMIN)
+                .param("importId", "pavti-books-test")
+                .contentType("text/csv")
+                .content(header + firstRows))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2));
+
+        mockMvc.perform(post("/api/donations/import").with(ADMIN)
+                .param("importId", "pavti-books-test")
+                .contentType("text/csv")
+                .content(header + firstRows + restRows))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.resumedFrom").value(2))
+                .andExpect(jsonPath("$.rowsRead").value(4))
+                .andExpect(jsonPath("$.imported").value(3))
+                .andExpect(jsonPath("$.failed").value(1));
+
+        mockMvc.perform(get("/api/donations/2011").with(ADMIN))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalCount").value(2))
+                .andExpect(jsonPath("$.donations[0].donationAmount").value(501.0))
+                .andExpect(jsonPath("$.donations[0].notes").value("Said \"shubh\""))
+                .andExpect(jsonPath("$.donations[1].donorAddress").value("12, Shaniwar Peth, Pune"));
+        mockMvc.perform(get("/api/donations/2012").with(ADMIN))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalCount").value(1))
+                .andExpect(jsonPath("$.donations[0].createdBy").value("Page_Admin"));
+
+        String errors = mockMvc.perform(get("/api/donations/import/pavti-books-test/errors").with(ADMIN))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertTrue(errors.contains("\n4,Donor phone must be between 10 and 15 characters,2012-08-30,Import Donor Three"));
+    }
+
+    @Test
+    void testCsvImportRejectsMissingColumns() throws Exception {
+        mockMvc.perform(post("/api/donations/import").with(ADMIN)
+                .param("importId", "missing-columns")
+                .contentType("text/csv")
+                .content("Donor Name,Amount\nSomeone,101\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false));
+
+        mockMvc.perform(post("/api/donations/import").with(COLLECTOR)
+                .param("importId", "not-allowed")
+                .contentType("text/csv")
+                .content("Donor Name,Amount\n"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void testClosedYearIsServedFromCacheUntilWritten() throws Exception {
+        Map<String, Object> batch = Map.of("items", List.of(
+                batchItem("closed-year-1", "2013-09-10", "Closed Year Donor", "9876543210")));
+        String created = mockMvc.perform(post("/api/donations/batch")
+                .with(ADMIN)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        long id = objectMapper.readTree(created).get("results").get(0).get("id").asLong();
+
+        String first = mockMvc.perform(get("/api/donations/2013").with(ADMIN))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalCount").value(1))
+                .andExpect(jsonPath("$.canEdit").value(true))
+                .andReturn().getResponse().getContentAsString();
+
+        // Served pre-compressed to clients that accept gzip
+        byte[] gzipped = mockMvc.perform(get("/api/donations/2013").with(ADMIN).header("Accept-Encoding", "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            assertEquals(first, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        mockMvc.perform(get("/api/donations/2013").with(ADMIN).header("Accept-Encoding", "br, *;q=0.5"))
+                .andExpect(header().string("Content-Encoding", "gzip"));
+        // ...but not to clients that refuse it with q=0
+        String refused = mockMvc.perform(get("/api/donations/2013").with(ADMIN).header("Accept-Encoding", "gzip;q=0, br"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(first, refused);
+
+        // Collectors get their own view
+        mockMvc.perform(get("/api/donations/2013").with(COLLECTOR))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalCount").value(0));
+
+        DonationRequest edit = new DonationRequest("Closed Year Donor Edited", "Market Yard, Satara", "9876543210",
+                new BigDecimal("75.00"), "Cash", null);
+        mockMvc.perform(put("/api/donations/2013/" + id)
+                .with(ADMIN)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(edit)))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/donations/2013").with(ADMIN))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.donations[0].donorName").value("Closed Year Donor Edited"));
+
+        // A correction committed by another instance sharing the database, which never touches this cache
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE donations_2013 SET donor_name = ? WHERE id = ?",
+                    "Closed Year Donor Corrected", id);
+            new DonationYearVersions(jdbcTemplate).bump(2013);
+        });
+        mockMvc.perform(get("/api/donations/2013").with(ADMIN))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.donations[0].donorName").value("Closed Year Donor Corrected"));
+
+        mockMvc.perform(delete("/api/donations/2013/" + id).with(ADMIN))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/donations/2013").with(ADMIN))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalCount").value(0));
+    }
+
+    @Test
+    void testYearListingRowsMatchDonationData() throws Exception {
+        createDonation(ADMIN, "Listing Donor");
+        createDonation(ADMIN, "Listing Donor To Edit");
+        long id = objectMapper.readTree(mockMvc.perform(get("/api/donations/" + year).with(ADMIN).param("limit", "1"))
+                .andReturn().getResponse().getContentAsString()).get("donations").get(0).get("id").asLong();
+        DonationRequest edit = new DonationRequest("Listing Donor Edited", "Shivaji Nagar, Pune", "9876543210",
+                new BigDecimal("250.50"), "UPI", "Edited");
+        mockMvc.perform(put("/api/donations/" + year + "/" + id)
+                .with(ADMIN)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(edit)))
+                .andExpect(status().isOk());
+
+        JsonNode listing = objectMapper.readTree(mockMvc.perform(get("/api/donations/" + year).with(ADMIN))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.canEdit").value(true))
+                .andExpect(jsonPath("$.canDelete").value(true))
+                .andReturn().getResponse().getContentAsString());
+        // Paged listings still go through DonationData
+        JsonNode page = objectMapper.readTree(mockMvc.perform(get("/api/donations/" + year + "?limit=500").with(ADMIN))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+
+        assertEquals(page.get("donations").size(), listing.get("totalCount").asInt());
+        for (int i = 0; i < page.get("donations").size(); i++) {
+            ObjectNode expected = (ObjectNode) page.get("donations").get(i);
+            expected.remove(List.of("canEdit", "canDelete"));
+            assertEquals(expected, listing.get("donations").get(i));
+        }
+
+        mockMvc.perform(get("/api/donations/" + year).with(COLLECTOR))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.canEdit").value(false))
+                .andExpect(jsonPath("$.donations[0].canEdit").doesNotExist());
+    }
+
+    @Test
+    void testYearCreatedByAnotherNodeIsListedAtOnce() throws Exception {
+        mockMvc.perform(get("/api/donations/years").with(ADMIN))
+                .andExpect(status().isOk());
+
+        // Another instance sharing the database creates a year table
+        DonationTableService otherNode = new DonationTableService(jdbcTemplate,
+                context.getBean(DonationRollupRepository.class), context.getBean(DonationYearVersions.class));
+        otherNode.createTableForYear(2016);
+
+        mockMvc.perform(get("/api/donations/years").with(ADMIN))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.years", hasItem(2016)));
+    }
+
+    @Test
+    void testSmileIsServedOnlyWhenAskedFor() throws Exception {
+        createDonation(SMILE_COLLECTOR, "Smile Donor");
+        ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+
+        byte[] smile = mockMvc.perform(get("/api/donations/" + year).with(SMILE_COLLECTOR)
+                        .accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andExpect(header().stringValues("Vary", hasItem("Accept")))
+                .andReturn().getResponse().getContentAsByteArray();
+        String json = mockMvc.perform(get("/api/donations/" + year).with(SMILE_COLLECTOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsString();
+        // Smile keeps amounts as BigDecimal, so read the JSON the same way
+        JsonNode expected = objectMapper.copy().enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS).readTree(json);
+        assertEquals(expected, smileMapper.readTree(smile));
+        assertTrue(smile.length < json.getBytes(StandardCharsets.UTF_8).length);
+
+        // Wildcards and JSON ranked higher stay JSON
+        mockMvc.perform(get("/api/donations/" + year).with(SMILE_COLLECTOR).header("Accept", "*/*"))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        mockMvc.perform(get("/api/donations/" + year).with(SMILE_COLLECTOR)
+                        .header("Accept", "application/json, application/x-jackson-smile;q=0.5"))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+
+        // Paged listings and stats go through the message converter
+        byte[] page = mockMvc.perform(get("/api/donations/" + year).with(SMILE_COLLECTOR).param("limit", "1")
+                        .accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertEquals(1, smileMapper.readTree(page).get("donations").size());
+        mockMvc.perform(get("/api/donations/" + year + "/stats").with(SMILE_COLLECTOR)
+                        .accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-jackson-smile"));
+
+        // Every negotiated response varies by Accept, and a JSON ETag never validates a Smile request
+        mockMvc.perform(get("/api/donations/" + year).with(SMILE_COLLECTOR).param("limit", "1"))
+                .andExpect(header().stringValues("Vary", hasItem("Accept")));
+        mockMvc.perform(get("/api/donations").with(SMILE_COLLECTOR)
+                        .param("from", year + "-01-01").param("to", year + "-12-31"))
+                .andExpect(header().stringValues("Vary", hasItem("Accept")));
+        for (String path : List.of("/api/donations/" + year + "/stats", "/api/donations/years")) {
+            String jsonTag = mockMvc.perform(get(path).with(SMILE_COLLECTOR))
+                    .andExpect(header().stringValues("Vary", hasItem("Accept")))
+                    .andReturn().getResponse().getHeader("ETag");
+            mockMvc.perform(get(path).with(SMILE_COLLECTOR).header("If-None-Match", jsonTag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().stringValues("Vary", hasItem("Accept")));
+            mockMvc.perform(get(path).with(SMILE_COLLECTOR).header("If-None-Match", jsonTag)
+                            .accept("application/x-jackson-smile"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType("application/x-jackson-smile"));
+        }
+    }
+
+    @Test
+    void testAnalyticsAggregateFromSnapshotAndFollowWrites() throws Exception {
+        String csv = """
+                Receipt Date,Donor Name,Donor Address,Donor Phone,Amount,Type,Notes,Collector
+                2015-01-10,Analytics Donor One,Sadashiv Peth Pune,9876543210,100,Cash,,Analytics_Collector_A
+                2015-01-20,Analytics Donor Two,Narayan Peth Pune,9876543210,250.50,UPI,,Analytics_Collector_B
+                2015-03-05,Analytics Donor Three,Budhwar Peth Pune,9876543210,1000,Cash,,Analytics_Collector_A
+                """;
+        mockMvc.perform(post("/api/donations/import").with(ADMIN).param("importId", "analytics-2015")
+                        .contentType("text/csv").content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(3));
+
+        mockMvc.perform(get("/api/donations/2015/analytics").with(ADMIN).param("groupBy", "month,type"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalCount").value(3))
+                .andExpect(jsonPath("$.totalAmount").value(1350.5))
+                .andExpect(jsonPath("$.groups.length()").value(3))
+                .andExpect(jsonPath("$.groups[0].month").value(1))
+                .andExpect(jsonPath("$.groups[0].donationType").value("Cash"))
+                .andExpect(jsonPath("$.groups[0].totalAmount").value(100.0))
+                .andExpect(jsonPath("$.groups[0].createdBy").doesNotExist())
+                .andExpect(jsonPath("$.groups[1].donationType").value("UPI"))
+                .andExpect(jsonPath("$.groups[2].month").value(3));
+        mockMvc.perform(get("/api/donations/2015/analytics").with(ADMIN)
+                        .param("groupBy", "collector").param("type", "Cash"))
+                .andExpect(jsonPath("$.groups.length()").value(1))
+                .andExpect(jsonPath("$.groups[0].createdBy").value("Analytics_Collector_A"))
+                .andExpect(jsonPath("$.groups[0].count").value(2))
+                .andExpect(jsonPath("$.groups[0].totalAmount").value(1100.0));
+        mockMvc.perform(get("/api/donations/2015/analytics").with(ADMIN)
+                        .param("from", "2015-01-15").param("to", "2015-03-31"))
+                .andExpect(jsonPath("$.totalCount").value(2));
+
+        // Writes after the snapshot is loaded are reflected once committed
+        Map<String, Object> batch = Map.of("items", List.of(
+                batchItem("analytics-1", "2015-06-01", "Analytics Donor Four", "9876543210")));
+        String created = mockMvc.perform(post("/api/donations/batch")
+                        .with(ADMIN)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        long id = objectMapper.readTree(created).get("results").get(0).get("id").asLong();
+        mockMvc.perform(get("/api/donations/2015/analytics").with(ADMIN))
+                .andExpect(jsonPath("$.totalCount").value(4))
+                .andExpect(jsonPath("$.totalAmount").value(1425.5));
+
+        DonationRequest edit = new DonationRequest("Analytics Donor Four", "Market Yard, Satara", "9876543210",
+                new BigDecimal("175.00"), "Cheque", null);
+        mockMvc.perform(put("/api/donations/2015/" + id)
+                        .with(ADMIN)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(edit)))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/donations/2015/analytics").with(ADMIN).param("type", "Cheque"))
+                .andExpect(jsonPath("$.totalCount").value(1))
+                .andExpect(jsonPath("$.totalAmount").value(175.0));
+
+        mockMvc.perform(delete("/api/donations/2015/" + id).with(ADMIN))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/donations/2015/analytics").with(ADMIN))
+                .andExpect(jsonPath("$.totalCount").value(3))
+                .andExpect(jsonPath("$.totalAmount").value(1350.5));
+
+        // A donation committed by another instance sharing the database reloads the snapshot
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("INSERT INTO donations_2015 (donor_name, donor_address, donor_phone, donation_amount,"
+                    + " donation_type, created_date, created_by) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                    "Analytics Donor Five", "Shukrawar Peth Pune", "9876543210", new BigDecimal("49.50"), "Cash",
+                    LocalDate.of(2015, 11, 2), "Analytics_Collector_B");
+            new DonationYearVersions(jdbcTemplate).bump(2015);
+        });
+        mockMvc.perform(get("/api/donations/2015/analytics").with(ADMIN))
+                .andExpect(jsonPath("$.totalCount").value(4))
+                .andExpect(jsonPath("$.totalAmount").value(1400.0));
+
+        // A year larger than the row limit is refused rather than loaded past it
+        DonationAnalyticsCache small = new DonationAnalyticsCache(jdbcTemplate, donationTableService,
+                new DonationYearVersions(jdbcTemplate), true, 2, new SimpleMeterRegistry());
+        assertThrows(IllegalStateException.class,
+                () -> small.aggregate(2015, new DonationAnalyticsCache.Query(false, false, false, null, null, null, null)));
+        assertEquals(0, small.rowsHeld());
+
+        mockMvc.perform(get("/api/donations/2015/analytics").with(ADMIN).param("groupBy", "weekday"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/donations/2015/analytics").with(COLLECTOR))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void testConditionalGetIsNotModifiedUntilYearIsWritten() throws Exception {
+        createDonation(ADMIN, "Conditional Donor");
+        String listTag = mockMvc.perform(get("/api/donations/" + year).with(ADMIN))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+        String statsTag = mockMvc.perform(get("/api/donations/" + year + "/stats").with(ADMIN))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        String yearsTag = mockMvc.perform(get("/api/donations/years").with(ADMIN))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/donations/" + year).with(ADMIN).header("If-None-Match", listTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/api/donations/" + year + "/stats").with(ADMIN).header("If-None-Match", statsTag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/donations/years").with(ADMIN).header("If-None-Match", yearsTag))
+                .andExpect(status().isNotModified());
+
+        // Another user's view of the same year has its own ETag
+        mockMvc.perform(get("/api/donations/" + year).with(COLLECTOR).header("If-None-Match", listTag))
+                .andExpect(status().isOk());
+
+        createDonation(ADMIN, "Conditional Donor Two");
+        mockMvc.perform(get("/api/donations/" + year).with(ADMIN).header("If-None-Match", listTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.donations[?(@.donorName == 'Conditional Donor Two')]").exists());
+        mockMvc.perform(get("/api/donations/" + year + "/stats").with(ADMIN).header("If-None-Match", statsTag))
+                .andExpect(status().isOk());
+
+        // A write committed by another instance sharing the database moves the version too
+        String currentTag = mockMvc.perform(get("/api/donations/" + year + "/stats").with(ADMIN))
+                .andReturn().getResponse().getHeader("ETag");
+        transactionTemplate.executeWithoutResult(status -> new DonationYearVersions(jdbcTemplate).bump(year));
+        mockMvc.perform(get("/api/donations/" + year + "/stats").with(ADMIN).header("If-None-Match", currentTag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testRepositoryCallsAreTimedPerYearTable() throws Exception {
+        createDonation(METRICS_COLLECTOR, "Metered Donor");
+        mockMvc.perform(get("/api/donations/" + year).with(METRICS_COLLECTOR))
+                .andExpect(status().isOk());
+
+        String yearTag = String.valueOf(year);
+        Timer save = meterRegistry.find("donations.repository")
+                .tags("operation", "save", "year", yearTag, "outcome", "success").timer();
+        assertNotNull(save);
+        assertTrue(save.count() > 0);
+
+        DistributionSummary rows = meterRegistry.find("donations.repository.rows")
+                .tags("year", yearTag).summary();
+        assertNotNull(rows);
+        assertTrue(rows.count() > 0);
+    }
+}
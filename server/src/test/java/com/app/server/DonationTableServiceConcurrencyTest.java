@@ -0,0 +1,119 @@
+package com.app.server;
+
+import com.app.server.model.Donation;
+import com.app.server.repository.DonationRepository;
+import com.app.server.repository.DonationRollupRepository;
+import com.app.server.repository.DonationYearVersions;
+import com.app.server.service.DonationTableService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Stress test for first-of-year table creation: hundreds of concurrent inserts
+ * into a year table that does not exist yet, split across two table service
+ * instances to stand in for two application nodes sharing one database.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class DonationTableServiceConcurrencyTest {
+
+    private static final int YEAR = 2091;
+    private static final int INSERTS = 300;
+
+    @Autowired
+    private DonationTableService donationTableService;
+
+    @Autowired
+    private DonationRepository donationRepository;
+
+    @Autowired
+    private DonationRollupRepository donationRollupRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testConcurrentFirstOfYearInserts() throws Exception {
+        DonationTableService otherNode = new DonationTableService(jdbcTemplate, donationRollupRepository,
+                new DonationYearVersions(jdbcTemplate));
+        ExecutorService executor = Executors.newFixedThreadPool(64);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Donation>> results = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < INSERTS; i++) {
+                DonationTableService node = i % 2 == 0 ? donationTableService : otherNode;
+                int n = i;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    node.ensureTableExistsForYear(YEAR);
+                    Donation donation = new Donation("Donor " + n, "Temple Road, Nashik", "9876543210",
+                            new BigDecimal("51.00"), "Cash", null, "Stress_Collector");
+                    donation.setCreatedDate(LocalDate.of(YEAR, 1, 1));
+                    return donationRepository.save(donation, YEAR);
+                }));
+            }
+            start.countDown();
+
+            for (Future<Donation> result : results) {
+                assertTrue(result.get(60, TimeUnit.SECONDS).getId() != null);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM donations_" + YEAR, Integer.class);
+        assertEquals(INSERTS, rows);
+
+        String status = jdbcTemplate.queryForObject(
+                "SELECT status FROM donation_table_locks WHERE table_year = ?", String.class, YEAR);
+        assertEquals("READY", status);
+
+        Integer indexes = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM information_schema.indexes
+                WHERE UPPER(table_name) = ? AND UPPER(index_name) LIKE 'IDX_%'
+                """, Integer.class, "DONATIONS_" + YEAR);
+        assertEquals(7, indexes);
+
+        assertEquals(INSERTS, donationTableService.getTableStats(YEAR).totalRecords());
+        assertTrue(donationTableService.tableExists(YEAR));
+        assertTrue(otherNode.tableExists(YEAR));
+    }
+
+    @Test
+    void testStaleClaimFromDeadNodeIsTakenOver() {
+        int year = YEAR - 1;
+        // Claimed ten minutes ago by the database clock, by a node that never finished
+        jdbcTemplate.update("""
+                INSERT INTO donation_table_locks (table_year, status, claimed_by, claimed_at)
+                VALUES (?, 'CREATING', 'dead-node', DATEADD(MINUTE, -10, CURRENT_TIMESTAMP))
+                """, year);
+
+        DonationTableService otherNode = new DonationTableService(jdbcTemplate, donationRollupRepository,
+                new DonationYearVersions(jdbcTemplate));
+        otherNode.createTableForYear(year);
+
+        assertTrue(otherNode.tableExists(year));
+        assertEquals("READY", jdbcTemplate.queryForObject(
+                "SELECT status FROM donation_table_locks WHERE table_year = ?", String.class, year));
+        assertNotEquals("dead-node", jdbcTemplate.queryForObject(
+                "SELECT claimed_by FROM donation_table_locks WHERE table_year = ?", String.class, year));
+    }
+}
@@ -0,0 +1,199 @@
+package com.app.server;
+
+import com.app.server.exception.IngestionBusyException;
+import com.app.server.model.Donation;
+import com.app.server.repository.DonationRepository;
+import com.app.server.service.DonationTableService;
+import com.app.server.service.DonationWriteBehindWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Group-commit ingestion: every queued donation is saved exactly once and
+ * gets its own generated ID, and a donation withdrawn after its caller timed
+ * out is never saved. The benchmark compares inserts per second with
+ * the one-commit-per-donation path; run it with
+ * mvn test -Dtest=DonationWriteBehindTest -Dbenchmark=true
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class DonationWriteBehindTest {
+
+    private static final int WRITE_BEHIND_YEAR = 2093;
+    private static final int STALLED_WRITER_YEAR = 2092;
+    private static final int DIRECT_BENCHMARK_YEAR = 2094;
+    private static final int GROUPED_BENCHMARK_YEAR = 2095;
+
+    @Autowired
+    private DonationRepository donationRepository;
+
+    @Autowired
+    private DonationTableService donationTableService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testQueuedDonationsAreGroupCommittedWithIds() throws Exception {
+        int donations = 400;
+        DonationWriteBehindWriter writer = startWriter();
+        donationTableService.ensureTableExistsForYear(WRITE_BEHIND_YEAR);
+
+        List<CompletableFuture<Donation>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < donations; i++) {
+                results.add(writer.submit(donation(i, WRITE_BEHIND_YEAR), WRITE_BEHIND_YEAR));
+            }
+
+            Set<Long> ids = new HashSet<>();
+            for (CompletableFuture<Donation> result : results) {
+                ids.add(result.get(30, TimeUnit.SECONDS).getId());
+            }
+            assertEquals(donations, ids.size());
+        } finally {
+            writer.shutdown();
+        }
+
+        Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM donations_" + WRITE_BEHIND_YEAR, Integer.class);
+        assertEquals(donations, rows);
+        assertEquals(donations, donationTableService.getTableStats(WRITE_BEHIND_YEAR).totalRecords());
+    }
+
+    @Test
+    void testDonationWithdrawnOnTimeoutIsNeverCommitted() throws Exception {
+        donationTableService.ensureTableExistsForYear(STALLED_WRITER_YEAR);
+        CountDownLatch stalled = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // Holds the writer inside its first group commit until released
+        TransactionTemplate stallingTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager()) {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) throws TransactionException {
+                stalled.countDown();
+                try {
+                    release.await(30, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.execute(action);
+            }
+        };
+        DonationWriteBehindWriter writer = new DonationWriteBehindWriter(donationRepository, stallingTemplate,
+                true, 10_000, 500, 1_000, 30_000);
+        writer.start();
+
+        try {
+            CompletableFuture<Donation> inFlight = writer.submit(donation(1, STALLED_WRITER_YEAR), STALLED_WRITER_YEAR);
+            assertTrue(stalled.await(30, TimeUnit.SECONDS));
+
+            // Queued behind the stalled group: the caller gives up and the donation is withdrawn
+            assertThrows(IngestionBusyException.class,
+                    () -> writer.submitAndWait(donation(2, STALLED_WRITER_YEAR), STALLED_WRITER_YEAR, 200));
+            // Already taken into a group, so it can no longer be withdrawn
+            assertFalse(inFlight.cancel(false));
+
+            release.countDown();
+            inFlight.get(30, TimeUnit.SECONDS);
+            // Once a later donation has committed the writer has passed the withdrawn one
+            writer.submit(donation(3, STALLED_WRITER_YEAR), STALLED_WRITER_YEAR).get(30, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            writer.shutdown();
+        }
+
+        List<String> donors = jdbcTemplate.queryForList(
+                "SELECT donor_name FROM donations_" + STALLED_WRITER_YEAR + " ORDER BY id", String.class);
+        assertEquals(List.of("Donor 1", "Donor 3"), donors);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkGroupCommitAgainstPerRowCommit() throws Exception {
+        int donations = 20_000;
+        int threads = 32;
+        donationTableService.ensureTableExistsForYear(DIRECT_BENCHMARK_YEAR);
+        donationTableService.ensureTableExistsForYear(GROUPED_BENCHMARK_YEAR);
+
+        double direct = insertsPerSecond(donations, threads,
+                i -> donationRepository.save(donation(i, DIRECT_BENCHMARK_YEAR), DIRECT_BENCHMARK_YEAR));
+
+        DonationWriteBehindWriter writer = startWriter();
+        double grouped;
+        try {
+            grouped = insertsPerSecond(donations, threads,
+                    i -> writer.submit(donation(i, GROUPED_BENCHMARK_YEAR), GROUPED_BENCHMARK_YEAR).get(30, TimeUnit.SECONDS));
+        } finally {
+            writer.shutdown();
+        }
+
+        System.out.printf("Per-row commit: %.0f inserts/s, group commit: %.0f inserts/s (%.1fx)%n",
+                direct, grouped, grouped / direct);
+    }
+
+    private double insertsPerSecond(int donations, int threads, Insert insert) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < donations; i++) {
+                int n = i;
+                results.add(executor.submit(() -> {
+                    insert.run(n);
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get(60, TimeUnit.SECONDS);
+            }
+            return donations / ((System.nanoTime() - start) / 1e9);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private DonationWriteBehindWriter startWriter() {
+        DonationWriteBehindWriter writer = new DonationWriteBehindWriter(donationRepository, transactionTemplate,
+                true, 10_000, 500, 1_000, 30_000);
+        writer.start();
+        return writer;
+    }
+
+    private Donation donation(int n, int year) {
+        Donation donation = new Donation("Donor " + n, "Ganesh Peth, Pune", "9876543210",
+                new BigDecimal("21.00"), "Cash", null, "Festival_Collector");
+        donation.setCreatedDate(LocalDate.of(year, 9, 1));
+        return donation;
+    }
+
+    @FunctionalInterface
+    private interface Insert {
+        void run(int n) throws Exception;
+    }
+}